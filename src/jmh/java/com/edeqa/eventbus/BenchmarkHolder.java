@@ -0,0 +1,54 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holder that consumes events by {@link Blackhole} and optionally declares its own events.
+ */
+public class BenchmarkHolder extends AbstractEntityHolder {
+
+    static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+
+    private final String type;
+    private final Blackhole blackhole;
+    private final List<String> events;
+
+    public BenchmarkHolder(String type, Blackhole blackhole, String... events) {
+        this.type = type;
+        this.blackhole = blackhole;
+        this.events = events.length > 0 ? new ArrayList<>(Arrays.asList(events)) : null;
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public List<String> events() {
+        return events;
+    }
+
+    @Override
+    public boolean onEvent(String eventName, Object eventObject) throws Exception {
+        super.onEvent(eventName, eventObject);
+        blackhole.consume(eventObject);
+        return true;
+    }
+}
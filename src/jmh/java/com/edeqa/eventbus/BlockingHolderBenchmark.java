@@ -0,0 +1,97 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holder blocks for a while on each event, like doing I/O. Compares {@link EventBus#RUNNER_MULTI_THREAD}
+ * with {@link VirtualThreadRunner}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockingHolderBenchmark {
+
+    private static final String EVENT = "blocking_event";
+
+    @Param({"multi_thread", "virtual", "virtual_limited"})
+    public String runner;
+
+    @Param({"100"})
+    public int events;
+
+    @Param({"1"})
+    public int blockMillis;
+
+    private EventBus<EntityHolder> eventBus;
+    private BlockingHolder holder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("blocking-" + runner);
+        switch (runner) {
+            case "multi_thread":
+                eventBus.setRunner(EventBus.RUNNER_MULTI_THREAD);
+                break;
+            case "virtual":
+                eventBus.setRunner(new VirtualThreadRunner());
+                break;
+            case "virtual_limited":
+                eventBus.setRunner(new VirtualThreadRunner(16));
+                break;
+        }
+        holder = new BlockingHolder();
+        eventBus.register(holder);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventBus.clear();
+    }
+
+    @Benchmark
+    public void post() throws InterruptedException {
+        holder.latch = new CountDownLatch(events);
+        for (int i = 0; i < events; i++) {
+            eventBus.post(EVENT, i);
+        }
+        holder.latch.await();
+    }
+
+    public class BlockingHolder extends AbstractEntityHolder {
+        volatile CountDownLatch latch;
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) throws Exception {
+            Thread.sleep(blockMillis);
+            latch.countDown();
+            return true;
+        }
+    }
+}
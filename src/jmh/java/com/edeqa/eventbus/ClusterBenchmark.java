@@ -0,0 +1,92 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link ClusterNode}: events are posted into the bus, sent to the other node over
+ * loopback and delivered back into the bus of the same name. Score is per event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClusterBenchmark {
+
+    private static final String EVENT = "cluster_event";
+    private static final int EVENTS = 10000;
+
+    private EventBus<EntityHolder> eventBus;
+    private ClusterNode receiver;
+    private ClusterNode sender;
+    private RemoteHolder holder;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("cluster");
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        holder = new RemoteHolder();
+        eventBus.register(holder);
+        receiver = new ClusterNode(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        sender = new ClusterNode(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .addPeer(receiver.getLocalAddress())
+                .link(eventBus, EVENT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sender.close();
+        receiver.close();
+        eventBus.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void send() throws InterruptedException {
+        holder.latch = new CountDownLatch(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.post(EVENT, i);
+        }
+        holder.latch.await();
+    }
+
+    public class RemoteHolder extends AbstractEntityHolder {
+        volatile CountDownLatch latch;
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            if (Thread.currentThread().getName().startsWith("EventBus-cluster-")) {
+                latch.countDown();
+            }
+            return true;
+        }
+    }
+}
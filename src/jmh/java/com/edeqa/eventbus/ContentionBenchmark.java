@@ -0,0 +1,87 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several producers post into the same bus at once. Runners are bounded, so producers are slowed
+ * down by the consumer instead of filling the memory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+
+    private static final String EVENT = "contention_event";
+    private static final Object EVENT_OBJECT = new Object();
+
+    @Param({"single_thread", "bounded", "ring_buffer"})
+    public String runner;
+
+    @Param({"10"})
+    public int holders;
+
+    private EventBus<EntityHolder> eventBus;
+    private RingBufferRunner ringBufferRunner;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("contention");
+        switch (runner) {
+            case "bounded":
+                eventBus.setRunner(new BoundedRunner(65536, BoundedRunner.Overflow.BLOCK));
+                break;
+            case "ring_buffer":
+                ringBufferRunner = new RingBufferRunner(65536, RingBufferRunner.ProducerType.MULTI, RingBufferRunner.WaitStrategy.YIELD);
+                eventBus.setRunner(ringBufferRunner);
+                break;
+            default:
+                eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        }
+        for (int i = 0; i < holders; i++) {
+            eventBus.register(new BenchmarkHolder("holder" + i, blackhole));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        eventBus.clear();
+        DispatchBenchmark.await(eventBus);
+        if (ringBufferRunner != null) {
+            ringBufferRunner.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void post() {
+        eventBus.post(EVENT, EVENT_OBJECT);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link EventBus#post(String, Object)} and {@link EventBus#post(EventKey, Object)} depending on the number of holders, the
+ * runner, and whether the event is broadcast to all holders or declared by one of them in
+ * {@link EntityHolder#events()}. Each invocation posts the batch of events and waits until the
+ * runner processes them.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final String BROADCAST_EVENT = "broadcast_event";
+    private static final Object EVENT_OBJECT = new Object();
+
+    @Param({"1", "10", "100"})
+    public int holders;
+
+    @Param({"broadcast", "filtered"})
+    public String dispatch;
+
+    @Param({"single_thread", "default"})
+    public String runner;
+
+    private EventBus<EntityHolder> eventBus;
+    private String eventName;
+    private EventKey<Object> eventKey;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("dispatch");
+        eventBus.setRunner("default".equals(runner) ? EventBus.DEFAULT_RUNNER : EventBus.RUNNER_SINGLE_THREAD);
+        for (int i = 0; i < holders; i++) {
+            if ("filtered".equals(dispatch)) {
+                eventBus.register(new BenchmarkHolder("holder" + i, blackhole, "event" + i));
+            } else {
+                eventBus.register(new BenchmarkHolder("holder" + i, blackhole));
+            }
+        }
+        eventName = "filtered".equals(dispatch) ? "event" + (holders - 1) : BROADCAST_EVENT;
+        eventKey = EventKey.of(eventName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        eventBus.clear();
+        await(eventBus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void post() throws InterruptedException {
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(eventName, EVENT_OBJECT);
+        }
+        await(eventBus);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void postTyped() throws InterruptedException {
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post(eventKey, EVENT_OBJECT);
+        }
+        await(eventBus);
+    }
+
+    /**
+     * Waits until the runner of bus processes everything posted before.
+     */
+    static void await(EventBus<?> eventBus) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+}
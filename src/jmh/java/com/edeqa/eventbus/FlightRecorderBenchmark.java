@@ -0,0 +1,84 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+
+/**
+ * Cost of {@link FlightRecorderEvents} for synchronous posting to one holder: events disabled,
+ * enabled without recording and recorded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlightRecorderBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final Object EVENT_OBJECT = new Object();
+
+    @Param({"off", "idle", "recording"})
+    public String events;
+
+    private EventBus<EntityHolder> eventBus;
+    private Recording recording;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("flight_recorder");
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.register(new BenchmarkHolder("holder", blackhole));
+        FlightRecorderEvents.setEnabled(!"off".equals(events));
+        if ("recording".equals(events)) {
+            recording = new Recording();
+            for (String name : new String[]{FlightRecorderEvents.POST, FlightRecorderEvents.ENQUEUE, FlightRecorderEvents.DISPATCH, FlightRecorderEvents.HANDLE}) {
+                recording.enable(name);
+            }
+            recording.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (recording != null) {
+            recording.close();
+        }
+        FlightRecorderEvents.setEnabled(false);
+        eventBus.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void post() {
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post("event", EVENT_OBJECT);
+        }
+    }
+}
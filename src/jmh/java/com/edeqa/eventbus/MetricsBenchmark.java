@@ -0,0 +1,84 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link EventBus#setMetricsEnabled(boolean) metrics} and of {@link HolderWatchdog} for
+ * synchronous posting to one holder: counters and latency histograms of bus and holder are updated
+ * for each event, the watchdog marks each call of holder.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final Object EVENT_OBJECT = new Object();
+
+    @Param({"off", "on"})
+    public String metrics;
+
+    @Param({"false", "true"})
+    public boolean watchdog;
+
+    private EventBus<EntityHolder> eventBus;
+    private HolderWatchdog holderWatchdog;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("metrics");
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.setMetricsEnabled("on".equals(metrics));
+        if (watchdog) {
+            holderWatchdog = new HolderWatchdog(100, TimeUnit.MILLISECONDS);
+            eventBus.setWatchdog(holderWatchdog);
+        }
+        eventBus.register(new BenchmarkHolder("holder", blackhole));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventBus.setMetricsEnabled(false);
+        eventBus.setWatchdog(null);
+        if (holderWatchdog != null) {
+            holderWatchdog.close();
+        }
+        eventBus.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void post() {
+        for (int i = 0; i < BATCH; i++) {
+            eventBus.post("event", EVENT_OBJECT);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link EventBus#postAll(String, Object)} depending on the number of buses, each one has
+ * one holder and the synchronous runner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostAllBenchmark {
+
+    private static final String EVENT = "post_all_event";
+    private static final Object EVENT_OBJECT = new Object();
+
+    @Param({"1", "10", "100"})
+    public int buses;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        for (int i = 0; i < buses; i++) {
+            //noinspection unchecked
+            EventBus<EntityHolder> eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("post_all" + i);
+            eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+            eventBus.register(new BenchmarkHolder("holder", blackhole));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        EventBus.clearAll();
+    }
+
+    @Benchmark
+    public void postAll() {
+        EventBus.postAll(EVENT, EVENT_OBJECT);
+    }
+}
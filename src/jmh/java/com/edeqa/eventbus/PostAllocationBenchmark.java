@@ -0,0 +1,75 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state posting with logging disabled must not allocate. Run with the allocation profiler
+ * and check that gc.alloc.rate.norm is 0 B/op:
+ * <pre>
+ *     gradle jmh -PjmhInclude=PostAllocationBenchmark -PjmhProfilers=gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostAllocationBenchmark {
+
+    private static final String EVENT = "allocation_event";
+    private static final Object EVENT_OBJECT = new Object();
+
+    @Param({"1", "10"})
+    public int holders;
+
+    private EventBus<EntityHolder> eventBus;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("allocation");
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        for (int i = 0; i < holders; i++) {
+            eventBus.register(new BenchmarkHolder("holder" + i, blackhole));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventBus.clear();
+    }
+
+    @Benchmark
+    public void post() {
+        eventBus.post(EVENT, EVENT_OBJECT);
+    }
+
+    @Benchmark
+    public void postRunnable() {
+        eventBus.postRunnable(BenchmarkHolder.NOOP);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of registration churn: one holder is registered and unregistered again in the bus that
+ * already has the number of holders.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationBenchmark {
+
+    @Param({"0", "10", "100"})
+    public int holders;
+
+    private EventBus<EntityHolder> eventBus;
+    private BenchmarkHolder holder;
+    private BenchmarkHolder filteredHolder;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("registration");
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        for (int i = 0; i < holders; i++) {
+            eventBus.register(new BenchmarkHolder("holder" + i, blackhole, "event" + i));
+        }
+        holder = new BenchmarkHolder("churn", blackhole);
+        filteredHolder = new BenchmarkHolder("churn_filtered", blackhole, "event0", "churn_event");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        eventBus.clear();
+    }
+
+    @Benchmark
+    public void registerUnregister() {
+        eventBus.register(holder);
+        eventBus.unregister(holder);
+    }
+
+    @Benchmark
+    public void registerUnregisterFiltered() {
+        eventBus.register(filteredHolder);
+        eventBus.unregister(filteredHolder);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of reading {@link EventJournal}: scanning records without decoding and replaying them
+ * by {@link JournalReplay} at maximal speed into the bus with one holder and the synchronous
+ * runner. Score is per event, for Java serialization and {@link BinaryCodec}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReplayBenchmark {
+
+    private static final int EVENTS = 100000;
+
+    @Param({"serializable", "binary"})
+    public String codec;
+
+    private File directory;
+    private EventJournal journal;
+    private EventBus<EntityHolder> eventBus;
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) throws IOException {
+        directory = Files.createTempDirectory("replay").toFile();
+        journal = new EventJournal(directory,
+                "binary".equals(codec) ? BinaryCodec.INSTANCE : SerializableCodec.INSTANCE, 4 * 1024 * 1024, EventJournal.Fsync.OS, 0, 0);
+        for (int i = 0; i < EVENTS; i++) {
+            journal.append("replay_event", i);
+        }
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("replay");
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.register(new BenchmarkHolder("holder", blackhole));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        EventBus.clearAll();
+        journal.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long scan(final Blackhole blackhole) throws IOException {
+        return journal.read(0, new EventJournal.Visitor() {
+            @Override
+            public boolean visit(EventJournal.Record record) {
+                blackhole.consume(record.getPayload());
+                return true;
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long replay() throws IOException {
+        return new JournalReplay(journal).replay(eventBus);
+    }
+}
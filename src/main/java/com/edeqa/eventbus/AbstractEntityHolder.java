@@ -58,7 +58,9 @@ abstract public class AbstractEntityHolder implements EntityHolder {
 
     @Override
     public boolean onEvent(String eventName, Object eventObject) throws Exception {
-        LOGGER.info(getType() + ".onEvent performs with eventName: " + eventName + ", eventObject: " + eventObject); //NON-NLS
+        if (LOGGER.isLoggable(Level.INFO)) {
+            LOGGER.info(getType() + ".onEvent performs with eventName: " + eventName + ", eventObject: " + eventObject); //NON-NLS
+        }
         switch (eventName) {
             case PRINT_HOLDER_NAME:
                 System.out.println("EntityHolder name: " + getType()); //NON-NLS
@@ -0,0 +1,28 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.List;
+
+/**
+ * Holder that receives events posted by {@link EventBus#postBatch(List)} all at once, i.e. to
+ * write them into database by one transaction. Single events are still received by
+ * {@link EntityHolder#onEvent(String, Object)}.
+ * <p>
+ * Holder gets its events after the whole batch has been dispatched to other holders, so it cannot
+ * interrupt the chain for single events of the batch.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface BatchEntityHolder extends EntityHolder {
+
+    /**
+     * @param events events of batch addressed to this holder, in order of posting
+     */
+    void onEvents(List<PostEvent<?>> events) throws Exception;
+}
@@ -0,0 +1,202 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Compact codec for null, primitive wrappers, strings and byte arrays. Object is written as one
+ * byte of type and its value: numbers in big-endian order, strings and arrays with int length
+ * ahead. Strings are encoded to UTF-8 right in the buffer, without intermediate arrays. Other
+ * objects are passed to the fallback codec if it is given.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class BinaryCodec implements EventCodec<Object> {
+
+    public static final BinaryCodec INSTANCE = new BinaryCodec();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte CHAR = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    static final byte STRING = 10;
+    static final byte BYTES = 11;
+    private static final byte FALLBACK = 127;
+
+    private final EventCodec<Object> fallback;
+
+    /**
+     * Creates codec that rejects unsupported objects by {@link IllegalArgumentException}.
+     */
+    public BinaryCodec() {
+        this(null);
+    }
+
+    /**
+     * @param fallback codec for unsupported objects, i.e. {@link SerializableCodec}
+     */
+    public BinaryCodec(EventCodec<Object> fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void encode(Object eventObject, ByteBuffer buffer) {
+        if (eventObject == null) {
+            buffer.put(NULL);
+        } else if (eventObject instanceof String) {
+            buffer.put(STRING);
+            putString((String) eventObject, buffer);
+        } else if (eventObject instanceof Integer) {
+            buffer.put(INT).putInt((Integer) eventObject);
+        } else if (eventObject instanceof Long) {
+            buffer.put(LONG).putLong((Long) eventObject);
+        } else if (eventObject instanceof Boolean) {
+            buffer.put((Boolean) eventObject ? TRUE : FALSE);
+        } else if (eventObject instanceof Double) {
+            buffer.put(DOUBLE).putDouble((Double) eventObject);
+        } else if (eventObject instanceof byte[]) {
+            byte[] bytes = (byte[]) eventObject;
+            buffer.put(BYTES).putInt(bytes.length).put(bytes);
+        } else if (eventObject instanceof Float) {
+            buffer.put(FLOAT).putFloat((Float) eventObject);
+        } else if (eventObject instanceof Short) {
+            buffer.put(SHORT).putShort((Short) eventObject);
+        } else if (eventObject instanceof Byte) {
+            buffer.put(BYTE).put((Byte) eventObject);
+        } else if (eventObject instanceof Character) {
+            buffer.put(CHAR).putChar((Character) eventObject);
+        } else if (fallback != null) {
+            buffer.put(FALLBACK);
+            fallback.encode(eventObject, buffer);
+        } else {
+            throw new IllegalArgumentException("BinaryCodec: unsupported object: " + eventObject.getClass().getName());
+        }
+    }
+
+    @Override
+    public Object decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case BYTE:
+                return buffer.get();
+            case SHORT:
+                return buffer.getShort();
+            case CHAR:
+                return buffer.getChar();
+            case INT:
+                return buffer.getInt();
+            case LONG:
+                return buffer.getLong();
+            case FLOAT:
+                return buffer.getFloat();
+            case DOUBLE:
+                return buffer.getDouble();
+            case STRING:
+                return getString(buffer);
+            case BYTES:
+                byte[] bytes = new byte[getLength(buffer)];
+                buffer.get(bytes);
+                return bytes;
+            case FALLBACK:
+                if (fallback == null) {
+                    throw new IllegalArgumentException("BinaryCodec: object encoded by fallback but no fallback is set");
+                }
+                return fallback.decode(buffer);
+            default:
+                throw new IllegalArgumentException("BinaryCodec: unsupported type: " + type);
+        }
+    }
+
+    /**
+     * Writes int length of UTF-8 bytes and the bytes. Length is patched after the string is
+     * written, so the string is not converted twice.
+     */
+    /**
+     * Reads the length written before bytes. Length comes from the other process or peer, so it is
+     * checked before allocating: broken or malicious frame must not cause OutOfMemoryError.
+     */
+    private static int getLength(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("BinaryCodec: broken length " + length + ", remaining " + buffer.remaining());
+        }
+        return length;
+    }
+
+    static void putString(String value, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putInt(0);
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xf0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            } else {
+                if (Character.isSurrogate(c)) {
+                    c = '?';
+                }
+                buffer.put((byte) (0xe0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+        buffer.putInt(start, buffer.position() - start - 4);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = getLength(buffer);
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        char[] chars = new char[length];
+        int count = 0;
+        int end = buffer.position() + length;
+        while (buffer.position() < end) {
+            int b = buffer.get() & 0xff;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if (b < 0xe0) {
+                chars[count++] = (char) (((b & 0x1f) << 6) | (buffer.get() & 0x3f));
+            } else if (b < 0xf0) {
+                chars[count++] = (char) (((b & 0x0f) << 12) | ((buffer.get() & 0x3f) << 6) | (buffer.get() & 0x3f));
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((buffer.get() & 0x3f) << 12) | ((buffer.get() & 0x3f) << 6) | (buffer.get() & 0x3f);
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runner with the limited queue of events. Performs runnables one by one in order of posting, using
+ * any thread of the executor given. When the queue is full the new event is processed according to
+ * {@link Overflow} policy.
+ * <p>
+ * Only events are limited. Other runnables (i.e. {@link EntityHolder#start()}, {@link EntityHolder#finish()}
+ * or {@link EventBus#postRunnable(Runnable)}) are never dropped or rejected.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class BoundedRunner implements EventBus.Runner {
+
+    public enum Overflow {
+        /**
+         * Poster waits until the queue has free space. Posting from the runner thread itself does
+         * not wait, the event is queued over the limit.
+         */
+        BLOCK,
+        /**
+         * Poster gets {@link RejectedExecutionException}.
+         */
+        FAIL,
+        /**
+         * The new event is dropped.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest waiting event is dropped.
+         */
+        DROP_OLDEST,
+        /**
+         * The waiting event with the same bus, name and key is replaced with the new one, so only
+         * the latest value is processed. If there is no such event then poster waits like {@link Overflow#BLOCK}.
+         */
+        COALESCE
+    }
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    private final int capacity;
+    private final Overflow overflow;
+    private final Executor executor;
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private final Map<Key, PostTask> pending = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private int events;
+    private boolean scheduled;
+    private volatile Thread consumer;
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    public BoundedRunner(int capacity, Overflow overflow) {
+        this(capacity, overflow, SerialRunner.getSharedExecutor());
+    }
+
+    public BoundedRunner(int capacity, Overflow overflow, Executor executor) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("BoundedRunner: capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns factory that creates separate bounded queue for each event bus.
+     */
+    public static EventBus.Runner.Factory factory(final int capacity, final Overflow overflow) {
+        return new EventBus.Runner.Factory() {
+            @Override
+            public EventBus.Runner create(String eventBusName) {
+                return new BoundedRunner(capacity, overflow);
+            }
+        };
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        if (!(runnable instanceof PostTask)) {
+            lock.lock();
+            try {
+                enqueue(runnable);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        PostTask task = (PostTask) runnable;
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            Key key = overflow == Overflow.COALESCE && task.postEvent == null ? new Key(task) : null;
+            while (true) {
+                if (key != null) {
+                    PostTask waiting = pending.get(key);
+                    if (waiting != null) {
+                        waiting.replace(task);
+                        coalesced.incrementAndGet();
+                        return;
+                    }
+                }
+                if (events < capacity || Thread.currentThread() == consumer) {
+                    break;
+                }
+                switch (overflow) {
+                    case FAIL:
+                        rejected.incrementAndGet();
+                        throw new RejectedExecutionException("BoundedRunner: queue is full, event rejected: " + task);
+                    case DROP_NEWEST:
+                        dropped.incrementAndGet();
+                        if (LOGGER.isLoggable(Level.FINE)) {
+                            LOGGER.fine("BoundedRunner: queue is full, event dropped: " + task);
+                        }
+                        task.discard();
+                        return;
+                    case DROP_OLDEST:
+                        dropOldest();
+                        continue;
+                    default:
+                        try {
+                            notFull.await();
+                        } catch (InterruptedException e) {
+                            interrupted = true;
+                        }
+                }
+            }
+            events++;
+            if (key != null) {
+                pending.put(key, task);
+            }
+            enqueue(task);
+        } finally {
+            lock.unlock();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Returns the number of events waiting in the queue.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of events dropped by {@link Overflow#DROP_NEWEST} or {@link Overflow#DROP_OLDEST}.
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of events rejected by {@link Overflow#FAIL}.
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the number of events replaced by newer ones in {@link Overflow#COALESCE}.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Override
+    public String toString() {
+        return "BoundedRunner{" +
+                "capacity=" + capacity +
+                ", overflow=" + overflow +
+                ", size=" + size() +
+                ", dropped=" + dropped +
+                ", rejected=" + rejected +
+                ", coalesced=" + coalesced +
+                '}';
+    }
+
+    private void enqueue(Runnable runnable) {
+        queue.offer(runnable);
+        if (!scheduled) {
+            scheduled = true;
+            executor.execute(drain);
+        }
+    }
+
+    private void dropOldest() {
+        Iterator<Runnable> iter = queue.iterator();
+        while (iter.hasNext()) {
+            Runnable runnable = iter.next();
+            if (runnable instanceof PostTask) {
+                iter.remove();
+                events--;
+                dropped.incrementAndGet();
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.fine("BoundedRunner: queue is full, event dropped: " + runnable);
+                }
+                ((PostTask) runnable).discard();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        consumer = Thread.currentThread();
+        try {
+            while (true) {
+                Runnable runnable;
+                lock.lock();
+                try {
+                    runnable = queue.poll();
+                    if (runnable == null) {
+                        scheduled = false;
+                        return;
+                    }
+                    if (runnable instanceof PostTask) {
+                        events--;
+                        if (overflow == Overflow.COALESCE) {
+                            pending.remove(new Key((PostTask) runnable), runnable);
+                        }
+                        notFull.signal();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    runnable.run();
+                } catch (Throwable e) {
+                    LOGGER.severe("BoundedRunner: runnable failed: " + runnable);
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            consumer = null;
+        }
+    }
+
+    /**
+     * Identifies events that may replace each other.
+     */
+    private static final class Key {
+        private final EventBus<?> eventBus;
+        private final String eventName;
+        private final Object key;
+
+        Key(PostTask task) {
+            eventBus = task.eventBus;
+            eventName = task.eventName;
+            key = task.key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return eventBus == other.eventBus
+                    && (eventName == null ? other.eventName == null : eventName.equals(other.eventName))
+                    && (key == null ? other.key == null : key.equals(other.key));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(eventBus);
+            result = 31 * result + (eventName != null ? eventName.hashCode() : 0);
+            result = 31 * result + (key != null ? key.hashCode() : 0);
+            return result;
+        }
+    }
+}
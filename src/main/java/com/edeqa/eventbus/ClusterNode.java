@@ -0,0 +1,643 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Links event buses of several nodes over TCP. Events posted into the linked bus are sent to all
+ * peers, each peer posts them into its bus of the same name by
+ * {@link EventBus#receive(String, Object)}, so they are not sent back. Each node must add all
+ * other nodes as peers.
+ * <pre>
+ *     ClusterNode node = new ClusterNode(new InetSocketAddress(7001));
+ *     node.addPeer(new InetSocketAddress("node2", 7001));
+ *     node.link(EventBus.getOrCreate("orders"), "order_created", "order_paid");
+ *     ...
+ *     node.close();
+ * </pre>
+ * All sockets are served by one thread with {@link Selector}. Events waiting for the peer are
+ * kept in its bounded queue, new events are dropped when it is full. Events are written by frames
+ * of many events, as many frames as the socket accepts per write. Events are numbered per peer
+ * and kept until the peer acknowledges them; after reconnection, which is repeated with growing
+ * pause, the peer tells the last number it has received and the rest is sent again. So events
+ * are delivered at least once while the sending node is running.
+ * <p>
+ * Frame: int length of the rest, byte type and its body. HELLO: id of node. ACK: long number of
+ * the last event received. EVENTS: long number of the first event, int count and events, each is
+ * the name of bus and the name of event as written by {@link BinaryCodec} and the object encoded
+ * by {@link EventCodec}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class ClusterNode implements EventBus.Forwarder, Closeable {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 64 * 1024;
+    public static final long MIN_RECONNECT_DELAY = TimeUnit.MILLISECONDS.toNanos(50);
+    public static final long MAX_RECONNECT_DELAY = TimeUnit.SECONDS.toNanos(5);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FRAME_SIZE = 4 * BUFFER_SIZE;
+    private static final byte HELLO = 1;
+    private static final byte ACK = 2;
+    private static final byte EVENTS = 3;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final EventCodec<Object> codec;
+    private final int queueCapacity;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private final List<Peer> peers = new CopyOnWriteArrayList<>();
+    private final Set<Connection> connections = new HashSet<>();
+    private final Map<String, Long> received = new HashMap<>();
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private volatile Map<EventBus<?>, Set<String>> links = Collections.emptyMap();
+    private volatile boolean running = true;
+
+    /**
+     * Starts the node listening the address given, with {@link BinaryCodec#INSTANCE} that accepts
+     * only primitives, strings and byte arrays.
+     *
+     * @param address address to listen, port 0 means any free port
+     */
+    public ClusterNode(InetSocketAddress address) throws IOException {
+        this(address, BinaryCodec.INSTANCE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Node does not authenticate peers: anyone who reaches the address may post events into linked
+     * buses. Listen only the address of trusted network. Never use {@link SerializableCodec} (also
+     * as fallback of {@link BinaryCodec}) unless all peers are trusted: deserialization of objects
+     * sent by attacker may run arbitrary code.
+     *
+     * @param address       address to listen, port 0 means any free port
+     * @param codec         codec of event objects, must be the same on all nodes
+     * @param queueCapacity maximal number of events waiting for each peer
+     */
+    public ClusterNode(InetSocketAddress address, EventCodec<Object> codec, int queueCapacity) throws IOException {
+        this.codec = codec;
+        this.queueCapacity = queueCapacity;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "EventBus-cluster-" + getLocalAddress().getPort());
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("ClusterNode: listening " + getLocalAddress());
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        return (InetSocketAddress) server.socket().getLocalSocketAddress();
+    }
+
+    /**
+     * Adds the node that will receive events of linked buses.
+     */
+    public ClusterNode addPeer(InetSocketAddress address) {
+        peers.add(new Peer(address));
+        wakeup();
+        return this;
+    }
+
+    /**
+     * Sends events of the bus to peers.
+     *
+     * @param eventNames names of events to send; all events if none given
+     */
+    public synchronized ClusterNode link(EventBus<?> eventBus, String... eventNames) {
+        Map<EventBus<?>, Set<String>> copy = new HashMap<>(links);
+        boolean added = !copy.containsKey(eventBus);
+        copy.put(eventBus, eventNames.length == 0 ? null : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(eventNames))));
+        links = Collections.unmodifiableMap(copy);
+        if (added) {
+            eventBus.addForwarder(this);
+        }
+        return this;
+    }
+
+    public synchronized void unlink(EventBus<?> eventBus) {
+        Map<EventBus<?>, Set<String>> copy = new HashMap<>(links);
+        if (copy.containsKey(eventBus)) {
+            copy.remove(eventBus);
+            links = Collections.unmodifiableMap(copy);
+            eventBus.removeForwarder(this);
+        }
+    }
+
+    @Override
+    public void forward(EventBus<?> eventBus, String eventName, Object eventObject) {
+        Map<EventBus<?>, Set<String>> links = this.links;
+        if (!running || !links.containsKey(eventBus)) {
+            return;
+        }
+        Set<String> names = links.get(eventBus);
+        if (names != null && !names.contains(eventName)) {
+            return;
+        }
+        for (Peer peer : peers) {
+            peer.offer(eventBus.getEventBusName(), eventName, eventObject);
+        }
+        wakeup();
+    }
+
+    private void wakeup() {
+        if (wakeup.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void serve() {
+        while (running) {
+            try {
+                long now = System.nanoTime();
+                long timeout = Long.MAX_VALUE;
+                wakeup.set(false);
+                for (Peer peer : peers) {
+                    if (peer.connection == null) {
+                        if (now - peer.reconnectAt >= 0) {
+                            connect(peer);
+                        } else {
+                            timeout = Math.min(timeout, peer.reconnectAt - now);
+                        }
+                    } else if (peer.connection.ready && peer.hasUnsent()) {
+                        write(peer.connection);
+                    }
+                }
+                if (timeout == Long.MAX_VALUE) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeout)));
+                }
+                for (Iterator<SelectionKey> iterator = selector.selectedKeys().iterator(); iterator.hasNext(); ) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.channel.finishConnect();
+                            connected(connection);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(connection);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(connection);
+                        }
+                    } catch (Exception e) {
+                        disconnect(connection, e);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.severe("ClusterNode: " + getLocalAddress() + " failed");
+                e.printStackTrace();
+            }
+        }
+        for (Connection connection : connections.toArray(new Connection[0])) {
+            disconnect(connection, null);
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel, null);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+    }
+
+    private void connect(Peer peer) {
+        Connection connection = null;
+        try {
+            SocketChannel channel = SocketChannel.open();
+            connection = new Connection(channel, peer);
+            peer.connection = connection;
+            connections.add(connection);
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            if (channel.connect(peer.address)) {
+                connected(connection);
+            }
+        } catch (IOException e) {
+            disconnect(connection, e);
+        }
+    }
+
+    private void connected(Connection connection) throws IOException {
+        connection.key.interestOps(SelectionKey.OP_READ);
+        ByteBuffer out = connection.out;
+        int start = out.position();
+        out.position(start + 4);
+        out.put(HELLO);
+        BinaryCodec.putString(nodeId, out);
+        out.putInt(start, out.position() - start - 4);
+        flush(connection);
+    }
+
+    private void disconnect(Connection connection, Exception e) {
+        if (connection == null) {
+            return;
+        }
+        connections.remove(connection);
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+        }
+        Peer peer = connection.peer;
+        if (peer != null && peer.connection == connection) {
+            peer.connection = null;
+            peer.rewind();
+            peer.reconnectAt = System.nanoTime() + peer.delay;
+            peer.delay = Math.min(peer.delay * 2, MAX_RECONNECT_DELAY);
+            if (running && e != null && connection.ready) {
+                LOGGER.warning("ClusterNode: connection to " + peer.address + " lost: " + e.getMessage());
+            } else if (running && e != null) {
+                LOGGER.fine("ClusterNode: cannot connect to " + peer.address + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            throw new EOFException("closed by peer");
+        }
+        in.flip();
+        long acknowledge = -1;
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length < 1 || length > MAX_FRAME_SIZE) {
+                throw new IOException("broken frame of length " + length);
+            }
+            if (in.remaining() < 4 + length) {
+                if (4 + length > in.capacity()) {
+                    ByteBuffer bigger = ByteBuffer.allocate(4 + length);
+                    bigger.put(in);
+                    connection.in = bigger;
+                }
+                break;
+            }
+            int end = in.position() + 4 + length;
+            ByteBuffer frame = in.duplicate();
+            frame.limit(end).position(in.position() + 4);
+            in.position(end);
+            byte type = frame.get();
+            if (type == HELLO) {
+                connection.nodeId = BinaryCodec.getString(frame);
+                Long last = received.get(connection.nodeId);
+                acknowledge = last != null ? last : 0;
+            } else if (type == ACK && connection.peer != null) {
+                connection.peer.acknowledge(frame.getLong());
+                if (!connection.ready) {
+                    connection.ready = true;
+                    connection.peer.delay = MIN_RECONNECT_DELAY;
+                    LOGGER.info("ClusterNode: connected to " + connection.peer.address);
+                }
+            } else if (type == EVENTS && connection.nodeId != null) {
+                acknowledge = deliver(connection.nodeId, frame);
+            } else {
+                throw new IOException("unexpected frame " + type);
+            }
+        }
+        if (connection.in == in) {
+            in.compact();
+        }
+        if (acknowledge >= 0) {
+            ByteBuffer out = connection.out;
+            out.putInt(9).put(ACK).putLong(acknowledge);
+            flush(connection);
+        }
+        if (connection.ready) {
+            write(connection);
+        }
+    }
+
+    /**
+     * Posts events of frame that were not received before into the buses of the same name.
+     *
+     * @return number of the last event received from node
+     */
+    private long deliver(String nodeId, ByteBuffer frame) {
+        long sequence = frame.getLong();
+        int count = frame.getInt();
+        Long last = received.get(nodeId);
+        long delivered = last != null ? last : 0;
+        for (int i = 0; i < count; i++, sequence++) {
+            String eventBusName = BinaryCodec.getString(frame);
+            String eventName = BinaryCodec.getString(frame);
+            Object eventObject = codec.decode(frame);
+            if (sequence <= delivered) {
+                continue;
+            }
+            delivered = sequence;
+            EventBus<?> eventBus = EventBus.getEventBus(eventBusName);
+            if (eventBus == null) {
+                LOGGER.warning("ClusterNode: <" + eventBusName + "> not defined, event dropped: " + eventName);
+                continue;
+            }
+            receivedCount.incrementAndGet();
+            eventBus.receive(eventName, eventObject);
+        }
+        received.put(nodeId, delivered);
+        return delivered;
+    }
+
+    /**
+     * Fills the buffer of connection with frames of unsent events and writes them.
+     */
+    private void write(Connection connection) throws IOException {
+        Peer peer = connection.peer;
+        while (true) {
+            sentCount.addAndGet(peer != null && connection.ready ? peer.fill(connection.out) : 0);
+            // buffer is empty after the whole flush, so the next fill encodes or drops an event
+            if (!flush(connection) || peer == null || !connection.ready || !peer.hasUnsent()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true if the whole buffer was written
+     */
+    private boolean flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        connection.channel.write(out);
+        boolean flushed = !out.hasRemaining();
+        out.compact();
+        int ops = connection.key.interestOps();
+        connection.key.interestOps(flushed ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE);
+        return flushed;
+    }
+
+    /**
+     * @return number of events sent to peers; events sent again after reconnection are counted
+     * again
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * @return number of events received from peers
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * @return number of events dropped because the queue of peer was full or the event could not
+     * be encoded
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return number of events waiting for peers or their acknowledgement
+     */
+    public int getPendingCount() {
+        int pending = 0;
+        for (Peer peer : peers) {
+            pending += peer.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Unlinks all buses and closes connections. Events that were not acknowledged by peers are
+     * lost.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        synchronized (this) {
+            for (EventBus<?> eventBus : links.keySet()) {
+                eventBus.removeForwarder(this);
+            }
+            links = Collections.emptyMap();
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("ClusterNode: " + getLocalAddress() + " closed");
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterNode{" + nodeId + ", " + server.socket().getLocalSocketAddress() + ", peers: " + peers.size() + "}";
+    }
+
+    private static final class Connection {
+        final SocketChannel channel;
+        final Peer peer;
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+        SelectionKey key;
+        String nodeId;
+        boolean ready;
+
+        Connection(SocketChannel channel, Peer peer) {
+            this.channel = channel;
+            this.peer = peer;
+        }
+    }
+
+    private static final class Pending {
+        final long sequence;
+        final String eventBusName;
+        final String eventName;
+        final Object eventObject;
+
+        Pending(long sequence, String eventBusName, String eventName, Object eventObject) {
+            this.sequence = sequence;
+            this.eventBusName = eventBusName;
+            this.eventName = eventName;
+            this.eventObject = eventObject;
+        }
+    }
+
+    /**
+     * Node events are sent to. Queues are guarded by the peer, connection fields are used only by
+     * the thread of node.
+     */
+    private final class Peer {
+        final InetSocketAddress address;
+        private final ArrayDeque<Pending> unsent = new ArrayDeque<>();
+        private final ArrayDeque<Pending> unacknowledged = new ArrayDeque<>();
+        private long sequence;
+        Connection connection;
+        long reconnectAt = System.nanoTime();
+        long delay = MIN_RECONNECT_DELAY;
+
+        Peer(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        synchronized void offer(String eventBusName, String eventName, Object eventObject) {
+            if (unsent.size() + unacknowledged.size() >= queueCapacity) {
+                droppedCount.incrementAndGet();
+                return;
+            }
+            unsent.add(new Pending(++sequence, eventBusName, eventName, eventObject));
+        }
+
+        synchronized boolean hasUnsent() {
+            return !unsent.isEmpty();
+        }
+
+        synchronized int size() {
+            return unsent.size() + unacknowledged.size();
+        }
+
+        synchronized void acknowledge(long sequence) {
+            while (!unacknowledged.isEmpty() && unacknowledged.peekFirst().sequence <= sequence) {
+                unacknowledged.pollFirst();
+            }
+            while (!unsent.isEmpty() && unsent.peekFirst().sequence <= sequence) {
+                unsent.pollFirst();
+            }
+        }
+
+        /**
+         * Returns events that were not acknowledged to be sent again.
+         */
+        synchronized void rewind() {
+            while (!unacknowledged.isEmpty()) {
+                unsent.addFirst(unacknowledged.pollLast());
+            }
+        }
+
+        /**
+         * Encodes unsent events into frames while they fit into the buffer.
+         *
+         * @return number of encoded events
+         */
+        synchronized int fill(ByteBuffer out) {
+            int encoded = 0;
+            frames:
+            while (!unsent.isEmpty() && out.remaining() > 32) {
+                int start = out.position();
+                long first = unsent.peekFirst().sequence;
+                out.position(start + 17);
+                int count = 0;
+                while (!unsent.isEmpty() && unsent.peekFirst().sequence == first + count) {
+                    Pending pending = unsent.peekFirst();
+                    int position = out.position();
+                    try {
+                        BinaryCodec.putString(pending.eventBusName, out);
+                        BinaryCodec.putString(pending.eventName, out);
+                        codec.encode(pending.eventObject, out);
+                    } catch (BufferOverflowException e) {
+                        out.position(position);
+                        if (count == 0 && start == 0) {
+                            LOGGER.severe("ClusterNode: event does not fit into " + BUFFER_SIZE + " bytes, eventName: " + pending.eventName);
+                            drop();
+                            out.position(start);
+                            continue frames;
+                        }
+                        break;
+                    } catch (Exception e) {
+                        out.position(position);
+                        LOGGER.severe("ClusterNode: encoding failed for eventName: " + pending.eventName + ", eventObject: " + pending.eventObject);
+                        e.printStackTrace();
+                        if (count == 0) {
+                            drop();
+                            out.position(start);
+                            continue frames;
+                        }
+                        break;
+                    }
+                    unacknowledged.add(unsent.pollFirst());
+                    count++;
+                }
+                if (count == 0) {
+                    out.position(start);
+                    break;
+                }
+                out.putInt(start, out.position() - start - 4);
+                out.put(start + 4, EVENTS);
+                out.putLong(start + 5, first);
+                out.putInt(start + 13, count);
+                encoded += count;
+            }
+            return encoded;
+        }
+
+        private void drop() {
+            unsent.pollFirst();
+            droppedCount.incrementAndGet();
+        }
+    }
+}
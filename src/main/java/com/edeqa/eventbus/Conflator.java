@@ -0,0 +1,197 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps at most one pending event for each conflated event name and key of {@link EventBus}. Next
+ * events replace the object of pending one until it is dispatched, so holders receive only the
+ * latest state.
+ */
+final class Conflator {
+
+    private final EventBus<?> eventBus;
+    private final ConcurrentMap<Key, Task> pending = new ConcurrentHashMap<>();
+    private final AtomicLong conflated = new AtomicLong();
+    private volatile Set<String> eventNames = Collections.emptySet();
+
+    Conflator(EventBus<?> eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    synchronized void setConflated(String eventName, boolean enabled) {
+        Set<String> names = new HashSet<>(eventNames);
+        if (enabled) {
+            names.add(eventName);
+        } else {
+            names.remove(eventName);
+        }
+        eventNames = Collections.unmodifiableSet(names);
+    }
+
+    boolean isConflated(String eventName) {
+        Set<String> names = eventNames;
+        return !names.isEmpty() && names.contains(eventName);
+    }
+
+    long getConflated() {
+        return conflated.get();
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * Replaces the object of pending event or posts the new one to the runner of event bus.
+     *
+     * @param eventKey may be null for events posted by name
+     * @param key      ordering key or null
+     * @param offset   offset of event in {@link EventJournal} or -1
+     */
+    void post(EventKey<?> eventKey, String eventName, Object eventObject, Object key, long offset) {
+        Key pendingKey = new Key(eventName, key);
+        while (true) {
+            Task task = pending.get(pendingKey);
+            if (task != null) {
+                long replaced = task.offer(eventObject, offset);
+                if (replaced != Task.TAKEN) {
+                    conflated.incrementAndGet();
+                    eventBus.discarded();
+                    eventBus.acknowledge(replaced);
+                    return;
+                }
+                continue;
+            }
+            task = new Task(pendingKey, eventKey, eventObject, offset);
+            if (pending.putIfAbsent(pendingKey, task) == null) {
+                EventBus.Runner runner = eventBus.getRunner();
+                try {
+                    if (key != null && runner instanceof EventBus.Runner.Keyed) {
+                        ((EventBus.Runner.Keyed) runner).post(key, task);
+                    } else {
+                        runner.post(task);
+                    }
+                } catch (RuntimeException e) {
+                    // rejected task must not collect next events of key
+                    task.reject();
+                    throw e;
+                }
+                return;
+            }
+        }
+    }
+
+    private final class Task implements Runnable {
+        static final long TAKEN = Long.MIN_VALUE;
+
+        private final Key pendingKey;
+        private final EventKey<?> eventKey;
+        private Object eventObject;
+        private long offset;
+        private boolean taken;
+
+        Task(Key pendingKey, EventKey<?> eventKey, Object eventObject, long offset) {
+            this.pendingKey = pendingKey;
+            this.eventKey = eventKey;
+            this.eventObject = eventObject;
+            this.offset = offset;
+        }
+
+        /**
+         * @return journal offset of replaced object, or {@link #TAKEN} if task is already running
+         * so the object must be posted as new event
+         */
+        synchronized long offer(Object eventObject, long offset) {
+            if (taken) {
+                pending.remove(pendingKey, this);
+                return TAKEN;
+            }
+            long replaced = this.offset;
+            this.eventObject = eventObject;
+            this.offset = offset;
+            return replaced;
+        }
+
+        /**
+         * Removes the task that runner has rejected. Objects offered meanwhile are lost with it,
+         * next ones are posted as new events.
+         */
+        void reject() {
+            long offset;
+            synchronized (this) {
+                taken = true;
+                offset = this.offset;
+                this.eventObject = null;
+            }
+            pending.remove(pendingKey, this);
+            eventBus.acknowledge(offset);
+        }
+
+        @Override
+        public void run() {
+            pending.remove(pendingKey, this);
+            Object eventObject;
+            long offset;
+            synchronized (this) {
+                taken = true;
+                eventObject = this.eventObject;
+                offset = this.offset;
+                this.eventObject = null;
+            }
+            try {
+                if (eventKey != null) {
+                    eventBus.dispatch(eventKey, eventObject);
+                } else {
+                    eventBus.dispatch(pendingKey.eventName, eventObject);
+                }
+            } finally {
+                eventBus.acknowledge(offset);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ConflatedTask{" +
+                    "eventBus=" + eventBus.getEventBusName() +
+                    ", eventName=" + pendingKey.eventName +
+                    ", key=" + pendingKey.key +
+                    '}';
+        }
+    }
+
+    private static final class Key {
+        private final String eventName;
+        private final Object key;
+
+        Key(String eventName, Object key) {
+            this.eventName = eventName;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return eventName.equals(other.eventName) && (key == null ? other.key == null : key.equals(other.key));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * eventName.hashCode() + (key != null ? key.hashCode() : 0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of holders registered in {@link EventBus}. Keeps the ordered array of holders
+ * for each event declared in {@link EntityHolder#events()}, indexed by {@link EventKey#getId()}, so
+ * dispatching needs only one array access. Must be rebuilt on each change of holders.
+ */
+final class DispatchTable {
+
+    static final DispatchTable EMPTY = new DispatchTable(new HashMap<String, EntityHolder>(), new HashMap<String, Map<String, EntityHolder>>());
+
+    private final EntityHolder[] broadcast;
+    private final EntityHolder[][] targets;
+    private final Map<String, EntityHolder[]> responders = new ConcurrentHashMap<>();
+
+    /**
+     * @param holders map of holders by type, in order of registration
+     * @param events  map of holders types by event name they declare
+     */
+    DispatchTable(Map<String, ? extends EntityHolder> holders, Map<String, ? extends Map<String, ? extends EntityHolder>> events) {
+        broadcast = holders.values().toArray(new EntityHolder[holders.size()]);
+        Map<EventKey<?>, EntityHolder[]> declared = new HashMap<>();
+        int size = 0;
+        for (Map.Entry<String, ? extends Map<String, ? extends EntityHolder>> entry : events.entrySet()) {
+            List<EntityHolder> list = new ArrayList<>();
+            for (Map.Entry<String, ? extends EntityHolder> holderEntry : holders.entrySet()) {
+                if (entry.getValue().containsKey(holderEntry.getKey())) {
+                    list.add(holderEntry.getValue());
+                }
+            }
+            EventKey<?> key = EventKey.of(entry.getKey());
+            declared.put(key, list.toArray(new EntityHolder[list.size()]));
+            size = Math.max(size, key.getId() + 1);
+        }
+        targets = new EntityHolder[size][];
+        for (Map.Entry<EventKey<?>, EntityHolder[]> entry : declared.entrySet()) {
+            targets[entry.getKey().getId()] = entry.getValue();
+        }
+    }
+
+    /**
+     * Returns holders that must receive the event, in order of registration. If no holder declares
+     * the event then it is addressed to all holders.
+     *
+     * @param eventKey key of event
+     * @return array of holders, must not be modified
+     */
+    EntityHolder[] lookup(EventKey<?> eventKey) {
+        int id = eventKey.getId();
+        if (id < targets.length) {
+            EntityHolder[] holders = targets[id];
+            if (holders != null) {
+                return holders;
+            }
+        }
+        return broadcast;
+    }
+
+    /**
+     * Returns all holders in order of registration.
+     *
+     * @return array of holders, must not be modified
+     */
+    EntityHolder[] getHolders() {
+        return broadcast;
+    }
+
+    /**
+     * Returns holders of the event that implement {@link ResponderEntityHolder}. Arrays are
+     * computed once for each event name.
+     *
+     * @param eventName any not empty event name, i.e. "event1"
+     * @return array of holders, must not be modified
+     */
+    EntityHolder[] responders(String eventName) {
+        EntityHolder[] result = responders.get(eventName);
+        if (result == null) {
+            List<EntityHolder> list = new ArrayList<>();
+            for (EntityHolder holder : lookup(eventName)) {
+                if (holder instanceof ResponderEntityHolder) {
+                    list.add(holder);
+                }
+            }
+            result = list.toArray(new EntityHolder[list.size()]);
+            responders.put(eventName, result);
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #lookup(EventKey)} for the event name.
+     *
+     * @param eventName any not empty event name, i.e. "event1"
+     * @return array of holders, must not be modified
+     */
+    EntityHolder[] lookup(String eventName) {
+        EventKey<?> eventKey = EventKey.find(eventName);
+        return eventKey != null ? lookup(eventKey) : broadcast;
+    }
+}
@@ -9,14 +9,22 @@
 package com.edeqa.eventbus;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TooManyListenersException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -27,35 +35,86 @@ public class EventBus<T extends EntityHolder> {
     public static final Runner DEFAULT_RUNNER = new Runner() {
         @Override
         public void post(final Runnable runnable) {
-            executor.submit(new Runnable() {
+            executor.execute(new Runnable() {
                 @Override
                 public void run() {
-                    runnable.run();
+                    // failed runnable must not kill the only thread of executor
+                    try {
+                        runnable.run();
+                    } catch (Throwable e) {
+                        LOGGER.severe("EventBus: runnable failed: " + runnable);
+                        e.printStackTrace();
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return runnable.toString();
                 }
             });
         }
     };
 
     public static final Runner RUNNER_MULTI_THREAD = DEFAULT_RUNNER;
-    public static final Runner RUNNER_SINGLE_THREAD = new EventBus.Runner() {
+
+    /**
+     * Gives each event bus its own serial lane over the shared pool, so the order of events is kept
+     * inside of bus while different buses run in parallel.
+     */
+    public static final Runner.Factory RUNNER_PER_BUS = new Runner.Factory() {
+        @Override
+        public Runner create(String eventBusName) {
+            return new SerialRunner();
+        }
+    };
+    public static final Runner RUNNER_SINGLE_THREAD = new Runner.Direct() {
         @Override
         public void post(Runnable runnable) {
             runnable.run();
         }
+
+        @Override
+        public void post(EventBus<?> eventBus, String eventName, Object eventObject) {
+            eventBus.dispatch(eventName, eventObject);
+        }
+
+        @Override
+        public void post(EventBus<?> eventBus, EventKey<?> eventKey, Object eventObject) {
+            eventBus.dispatch(eventKey, eventObject);
+        }
     };
 
     private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
-    private static Level loggingLevel = Level.WARNING;
+    private static volatile Level loggingLevel = Level.WARNING;
     private static ExecutorService executor = Executors.newSingleThreadExecutor();
-    private static Runner runnerDefault = DEFAULT_RUNNER;
+    private static volatile Runner.Factory runnerDefault = single(DEFAULT_RUNNER);
 
-    private static Map<String, EventBus<? extends EntityHolder>> buses = new LinkedHashMap<>();
-    private static List<String> inspect = new ArrayList<>();
+    /*
+     * Buses and holders are kept in immutable snapshots which are replaced on each change under
+     * the lock, so posting reads them without locking and never sees them in the middle of change.
+     */
+    private static volatile Map<String, EventBus<? extends EntityHolder>> buses = Collections.emptyMap();
+    /*
+     * Events under inspection, each one with names of buses that have already reported it.
+     */
+    private static final Map<String, Set<String>> inspect = new ConcurrentHashMap<>();
 
-    private Runner runner;
-    private Map<String, T> holders;
-    private Map<String, Map<String, T>> events;
-    private String eventBusName;
+    private final Object lock = new Object();
+    private volatile Runner runner;
+    private volatile KeyExtractor keyExtractor;
+    private volatile Map<String, T> holders;
+    private final Map<String, Map<String, T>> events;
+    private volatile DispatchTable dispatchTable = DispatchTable.EMPTY;
+    private final String eventBusName;
+    private final Conflator conflator = new Conflator(this);
+    private final StickyCache sticky = new StickyCache();
+    private volatile EventJournal journal;
+    private final Map<String, Map<String, RateLimiter>> holderRateLimits = new ConcurrentHashMap<>();
+    private volatile Map<String, RateLimiter> rateLimits = Collections.emptyMap();
+    private volatile Forwarder[] forwarders = new Forwarder[0];
+    private volatile EventBusMetrics metrics;
+    private volatile HolderWatchdog watchdog;
+    private final Map<String, Runner> quarantined = new ConcurrentHashMap<>();
 
     public EventBus() throws TooManyListenersException {
         this(DEFAULT_NAME);
@@ -64,16 +123,21 @@ public class EventBus<T extends EntityHolder> {
     public EventBus(String eventBusName) throws TooManyListenersException {
         LOGGER.setLevel(getLoggingLevel());
 
-        if (buses.containsKey(eventBusName)) {
-            throw new TooManyListenersException("EventBus: <" + eventBusName + "> already defined.");
-        }
-        this.eventBusName = eventBusName;
-        holders = new LinkedHashMap<>();
-        events = new HashMap<>();
+        synchronized (EventBus.class) {
+            if (buses.containsKey(eventBusName)) {
+                throw new TooManyListenersException("EventBus: <" + eventBusName + "> already defined.");
+            }
+            this.eventBusName = eventBusName;
+            holders = Collections.emptyMap();
+            events = new HashMap<>();
+
+            LOGGER.info("EventBus registered: <" + eventBusName + ">");
+            setRunner(runnerDefault.create(eventBusName));
 
-        LOGGER.info("EventBus registered: <" + eventBusName + ">");
-        setRunner(runnerDefault);
-        buses.put(eventBusName, this);
+            Map<String, EventBus<? extends EntityHolder>> copy = new LinkedHashMap<>(buses);
+            copy.put(eventBusName, this);
+            buses = Collections.unmodifiableMap(copy);
+        }
     }
 
     /**
@@ -121,7 +185,7 @@ public class EventBus<T extends EntityHolder> {
         return getOrCreate(DEFAULT_NAME);
     }
 
-    public static EventBus<? extends EntityHolder> getOrCreate(String eventBusName) {
+    public static synchronized EventBus<? extends EntityHolder> getOrCreate(String eventBusName) {
         if (buses.containsKey(eventBusName)) {
             return buses.get(eventBusName);
         } else {
@@ -135,14 +199,16 @@ public class EventBus<T extends EntityHolder> {
     }
 
     /**
-     * Provides the possibility for deep inspection of event specified.
+     * Provides the possibility for deep inspection of event specified. The stack of posting
+     * thread is dumped once in each bus, next posts of the event are not reported until it is
+     * inspected again.
      *
-     * @param eventName any not empty event name, i.e. "event1"
+     * @param eventName any not empty event name, i.e. "event1"; null clears all inspections
      */
     public static void inspect(String eventName) {
         if (eventName != null) {
             LOGGER.warning("EventBus sets event for deep inspection: " + eventName);
-            inspect.add(eventName);
+            inspect.put(eventName, ConcurrentHashMap.<String>newKeySet());
         } else {
             LOGGER.warning("EventBus clears inspection events");
             inspect.clear();
@@ -160,6 +226,40 @@ public class EventBus<T extends EntityHolder> {
         buses.get(eventBusName).post(eventName, eventObject);
     }
 
+    /**
+     * Typed events poster. Events will be posted to holders using {@link Runner}.
+     *
+     * @param eventBusName name of event bus that must process this event
+     * @param eventKey     key of event, see {@link EventKey}
+     * @param eventObject  object that will be sent together with event
+     */
+    public static <E> void post(String eventBusName, EventKey<E> eventKey, E eventObject) {
+        buses.get(eventBusName).post(eventKey, eventObject);
+    }
+
+    /**
+     * Events poster. Events with the same key will be processed in order of posting, see
+     * {@link EventBus#postByKey(String, Object, Object)}.
+     *
+     * @param eventBusName name of event bus that must process this event
+     * @param eventName    any not empty event name, i.e. "event1"
+     * @param eventObject  any object that will be sent together with event name
+     * @param key          ordering key, i.e. user id
+     */
+    public static void postByKey(String eventBusName, String eventName, Object eventObject, Object key) {
+        buses.get(eventBusName).postByKey(eventName, eventObject, key);
+    }
+
+    /**
+     * Posts the batch of events, see {@link EventBus#postBatch(List)}.
+     *
+     * @param eventBusName name of event bus that must process these events
+     * @param events       list of events
+     */
+    public static void postBatch(String eventBusName, List<? extends PostEvent<?>> events) {
+        buses.get(eventBusName).postBatch(events);
+    }
+
     /**
      * Will post event/object to each holder in each event bus defined.
      *
@@ -208,34 +308,53 @@ public class EventBus<T extends EntityHolder> {
      * @param runner {@link Runner}, default value is {@link EventBus#DEFAULT_RUNNER}.
      */
     public static void setMainRunner(Runner runner) {
-        EventBus.runnerDefault = runner;
-        LOGGER.config("EventBus overrides main runner: " + runner);
+        setMainRunnerFactory(single(runner));
+    }
+
+    /**
+     * Redefines the default runner and overrides runners in all existing buses, each bus gets its
+     * own runner created by factory, i.e. {@link EventBus#RUNNER_PER_BUS}.
+     *
+     * @param factory {@link Runner.Factory}
+     */
+    public static void setMainRunnerFactory(Runner.Factory factory) {
+        EventBus.runnerDefault = factory;
+        LOGGER.config("EventBus overrides main runner: " + factory);
         for (EventBus<? extends EntityHolder> bus : fetchEventBusesList()) {
-            bus.setRunner(runner);
+            bus.setRunnerFactory(factory);
         }
     }
 
+    private static Runner.Factory single(final Runner runner) {
+        return new Runner.Factory() {
+            @Override
+            public Runner create(String eventBusName) {
+                return runner;
+            }
+
+            @Override
+            public String toString() {
+                return String.valueOf(runner);
+            }
+        };
+    }
+
     /**
      * Will call {@link EntityHolder#finish()} on each holder before clear eventBus.
      */
     public void clear() {
-        Iterator<Map.Entry<String, T>> entries = holders.entrySet().iterator();
-        while (entries.hasNext()) {
-            Map.Entry<String, T> holderEntry = entries.next();
-            final T holder = holderEntry.getValue();
-            entries.remove();
-
-            Iterator<Map.Entry<String, Map<String, T>>> iter = events.entrySet().iterator();
-            while (iter.hasNext()) {
-                Map.Entry<String, Map<String, T>> entry = iter.next();
-                if (entry.getValue().containsKey(holderEntry.getValue().getType())) {
-                    entry.getValue().remove(holderEntry.getValue().getType());
-                }
-                if (entry.getValue().size() == 0) {
-                    iter.remove();
-                }
-            }
-            getRunner().post(new Runnable() {
+        List<T> removed;
+        synchronized (lock) {
+            removed = new ArrayList<>(holders.values());
+            holders = Collections.emptyMap();
+            events.clear();
+            holderRateLimits.clear();
+            quarantined.clear();
+            sticky.clear();
+            rebuildDispatchTable();
+        }
+        for (final T holder : removed) {
+            postLifecycle(new Runnable() {
                 @Override
                 public void run() {
                     try {
@@ -264,12 +383,12 @@ public class EventBus<T extends EntityHolder> {
     }
 
     public T getHolder(String type) {
-        if (holders.containsKey(type)) return holders.get(type);
-        return null;
+        return holders.get(type);
     }
 
     /**
-     * Returns the map of holders in event bus.
+     * Returns the map of holders in event bus. The map is an unmodifiable snapshot, it does not
+     * reflect further changes.
      */
     public Map<String, T> getHolders() {
         return holders;
@@ -294,6 +413,29 @@ public class EventBus<T extends EntityHolder> {
         LOGGER.config("EventBus: <" + eventBusName + "> set runner: " + runner);
     }
 
+    public KeyExtractor getKeyExtractor() {
+        return keyExtractor;
+    }
+
+    /**
+     * Defines the ordering key for events posted without key, see {@link EventBus#postByKey(String, Object, Object)}.
+     *
+     * @param keyExtractor {@link KeyExtractor} or null for no keys
+     */
+    public void setKeyExtractor(KeyExtractor keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        LOGGER.config("EventBus: <" + eventBusName + "> set key extractor: " + keyExtractor);
+    }
+
+    /**
+     * Changes the runner for event bus to the new one created by factory.
+     *
+     * @param factory {@link Runner.Factory}, i.e. {@link EventBus#RUNNER_PER_BUS}
+     */
+    public void setRunnerFactory(Runner.Factory factory) {
+        setRunner(factory.create(eventBusName));
+    }
+
     /**
      * Events poster. Events will be posted to holders using {@link Runner}.
      *
@@ -309,199 +451,1286 @@ public class EventBus<T extends EntityHolder> {
      * @param eventName   any not empty event name, i.e. "event1"
      * @param eventObject any object that will be sent together with event name
      */
-    public void post(final String eventName, final Object eventObject) {
-        if (inspect.size() > 0) {
-            if (inspect.contains(eventName)) {
-                LOGGER.severe("EventBus: <" + eventBusName + ">, inspection for eventName " + eventName + " caught:");
-                Thread.dumpStack();
-            }
-        }
-        getRunner().post(new Runnable() {
-            @Override
-            public void run() {
-                LOGGER.fine("EventBus: <" + eventBusName + ">, starting postSync for eventName: " + eventName + ", eventObject: " + eventObject);
-                for (Map.Entry<String, ? extends EntityHolder> entry : getHolders().entrySet()) {
-                    try {
-                        if (events.containsKey(eventName) && !events.get(eventName).containsKey(entry.getValue().getType())) {
-                            LOGGER.fine("EventBus: <" + eventBusName + "> skips holder: " + entry.getValue() + ", eventName: " + eventName + " because of holder was not adjusted for this event.");
-                            continue;
-                        }
-                        LOGGER.fine("EventBus: <" + eventBusName + "> holder: " + entry.getValue() + ", eventName: " + eventName + ", eventObject: " + eventObject);
-                        if (!entry.getValue().onEvent(eventName, eventObject)) {
-                            break;
-                        }
-                    } catch (Exception e) {
-                        LOGGER.severe("EventBus: <" + eventBusName + ">, post failed for holder: " + entry.getValue() + ", eventName: " + eventName + ", eventObject: " + eventObject + ". Use EventBus.inspect(\"" + eventName + "\"); to resolve the issue.");
-                        e.printStackTrace();
-                    }
-                }
-            }
-        });
+    public void post(String eventName, Object eventObject) {
+        KeyExtractor keyExtractor = this.keyExtractor;
+        postByKey(eventName, eventObject, keyExtractor != null ? keyExtractor.extract(eventName, eventObject) : null);
     }
 
     /**
-     * Will post runnable in the same queue with events.
+     * Events poster. If runner is {@link Runner.Keyed} then events with the same key will be
+     * processed in order of posting while events with different keys may be processed in parallel.
+     * Other runners ignore the key.
      *
-     * @param runnable redefine {@link Runnable}
+     * @param eventName   any not empty event name, i.e. "event1"
+     * @param eventObject any object that will be sent together with event name
+     * @param key         ordering key, i.e. user id; null means no key
      */
-    public void postRunnable(Runnable runnable) {
-        LOGGER.fine("EventBus: <" + eventBusName + ">, starting runnable: " + runnable);
-        getRunner().post(runnable);
+    public void postByKey(String eventName, Object eventObject, Object key) {
+        FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+        Object trace = recorder != null ? recorder.begin(recorder.post) : null;
+        checkInspection(eventName);
+        boolean admitted = admit(eventName, eventObject, key);
+        if (admitted) {
+            forward(eventName, eventObject);
+            enqueue(null, eventName, eventObject, key);
+        }
+        if (trace != null) {
+            recorder.commit(recorder.post, trace, eventBusName, eventName, FlightRecorderEvents.id(eventObject), admitted);
+        }
     }
 
     /**
-     * Registers the holder in event bus.
+     * Posts the event that came from other process, i.e. by {@link SharedMemoryBridge}. Unlike
+     * {@link #post(String, Object)} event is not passed to forwarders, so it does not return back.
      *
-     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     * @param eventName   any not empty event name, i.e. "event1"
+     * @param eventObject any object that will be sent together with event name
      */
-    public void register(final T holder) {
-        if (holder == null || holder.getType() == null || holder.getType().length() == 0) {
-            LOGGER.severe("EventBus: <" + eventBusName + "> registration failed, holder is not defined or invalid.");
+    public void receive(String eventName, Object eventObject) {
+        checkInspection(eventName);
+        KeyExtractor keyExtractor = this.keyExtractor;
+        Object key = keyExtractor != null ? keyExtractor.extract(eventName, eventObject) : null;
+        if (!admit(eventName, new Received(eventObject), key)) {
             return;
         }
-        if (holders.containsKey(holder.getType())) {
-            LOGGER.severe("EventBus: <" + eventBusName + "> registration failed, holder <" + holder.getType() + "> already defined. " + holder.getClass());
-            return;
+        enqueue(null, eventName, eventObject, key);
+    }
+
+    /**
+     * Typed events poster. Holders of event are found by {@link EventKey#getId()} without comparing
+     * names.
+     *
+     * @param eventKey key of event, see {@link EventKey}
+     */
+    public <E> void post(EventKey<E> eventKey) {
+        post(eventKey, null);
+    }
+
+    /**
+     * Typed events poster. Holders of event are found by {@link EventKey#getId()} without comparing
+     * names.
+     *
+     * @param eventKey    key of event, see {@link EventKey}
+     * @param eventObject object that will be sent together with event
+     */
+    public <E> void post(EventKey<E> eventKey, E eventObject) {
+        KeyExtractor keyExtractor = this.keyExtractor;
+        postByKey(eventKey, eventObject, keyExtractor != null ? keyExtractor.extract(eventKey.getName(), eventObject) : null);
+    }
+
+    /**
+     * Typed events poster, see {@link EventBus#postByKey(String, Object, Object)}.
+     *
+     * @param eventKey    key of event, see {@link EventKey}
+     * @param eventObject object that will be sent together with event
+     * @param key         ordering key, i.e. user id; null means no key
+     */
+    public <E> void postByKey(EventKey<E> eventKey, E eventObject, Object key) {
+        FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+        Object trace = recorder != null ? recorder.begin(recorder.post) : null;
+        checkInspection(eventKey.getName());
+        boolean admitted = admit(eventKey.getName(), eventObject, key);
+        if (admitted) {
+            forward(eventKey.getName(), eventObject);
+            enqueue(eventKey, eventKey.getName(), eventObject, key);
         }
-        holder.setLoggingLevel(getLoggingLevel());
+        if (trace != null) {
+            recorder.commit(recorder.post, trace, eventBusName, eventKey.getName(), FlightRecorderEvents.id(eventObject), admitted);
+        }
+    }
 
-        //noinspection unchecked
-        List<String> events = holder.events();
+    /**
+     * Adds the forwarder that receives each event posted into this bus, after rate limits and
+     * before the event is passed to the runner. Debounced events are forwarded when they are
+     * emitted.
+     */
+    public void addForwarder(Forwarder forwarder) {
+        synchronized (lock) {
+            Forwarder[] copy = Arrays.copyOf(forwarders, forwarders.length + 1);
+            copy[forwarders.length] = forwarder;
+            forwarders = copy;
+        }
+    }
 
-        if (events != null) {
-            for (String event : events) {
-                Map<String, T> hs;
-                if (this.events.containsKey(event)) {
-                    hs = this.events.get(event);
-                } else {
-                    hs = new HashMap<>();
-                    this.events.put(event, hs);
-                }
-                hs.put(holder.getType(), holder);
+    public void removeForwarder(Forwarder forwarder) {
+        synchronized (lock) {
+            List<Forwarder> copy = new ArrayList<>(Arrays.asList(forwarders));
+            if (copy.remove(forwarder)) {
+                forwarders = copy.toArray(new Forwarder[copy.size()]);
             }
-            LOGGER.config("EventBus: <" + eventBusName + "> holder " + holder.getType() + " catches following events: " + events);
         }
+    }
 
-        holders.put(holder.getType(), holder);
-        getRunner().post(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    holder.start();
-                } catch (Exception e) {
-                    LOGGER.severe("EventBus: <" + eventBusName + "> and holder " + holder);
-                    e.printStackTrace();
-                }
+    private void forward(String eventName, Object eventObject) {
+        for (Forwarder forwarder : forwarders) {
+            try {
+                forwarder.forward(this, eventName, eventObject);
+            } catch (Exception e) {
+                LOGGER.severe("EventBus: <" + eventBusName + ">, forwarding failed for forwarder: " + forwarder + ", eventName: " + eventName);
+                e.printStackTrace();
             }
-        });
-        LOGGER.info("EventBus: <" + eventBusName + "> holder registered: " + holder.getType());
+        }
     }
 
     /**
-     * Registers the holder in event bus or updates if it already exists.
+     * Passes the event to the runner. If runner rejects the event then it is acknowledged in
+     * journal, so it does not stay pending forever, and the exception is thrown to the poster.
      *
-     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     * @param eventKey may be null for events posted by name
      */
-    public void registerOrUpdate(T holder) {
-        if (getHolder(holder.getType()) != null) {
-            update(holder);
-        } else {
-            register(holder);
+    private void enqueue(EventKey<?> eventKey, String eventName, Object eventObject, Object key) {
+        EventJournal journal = this.journal;
+        long offset = journal != null ? journal.append(eventName, eventObject) : -1;
+        try {
+            route(eventKey, eventName, eventObject, key, offset);
+        } catch (RuntimeException e) {
+            acknowledge(offset);
+            throw e;
         }
     }
 
     /**
-     * Registers the holder in event bus only if it is not registered.
-     *
-     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
-     * @return registered holder
+     * @param offset offset of event in {@link EventJournal} or -1
      */
-    public T registerIfAbsent(T holder) {
-        T existingHolder = getHolder(holder.getType());
-        if (existingHolder == null) {
-            register(holder);
+    private void route(EventKey<?> eventKey, String eventName, Object eventObject, Object key, long offset) {
+        EventBusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.posted(1);
+        }
+        Runner runner = getRunner();
+        FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+        if (recorder != null) {
+            recorder.instant(recorder.enqueue, eventBusName, eventName, FlightRecorderEvents.id(eventObject), runner.getClass().getName());
+        }
+        if (conflator.isConflated(eventName)) {
+            conflator.post(eventKey, eventName, eventObject, key, offset);
+            return;
+        }
+        if (offset >= 0) {
+            PostTask task = new PostTask(this, eventKey, eventName, eventObject, key);
+            task.offset = offset;
+            if (key != null && runner instanceof Runner.Keyed) {
+                ((Runner.Keyed) runner).post(key, task);
+            } else {
+                runner.post(task);
+            }
+        } else if (key != null && runner instanceof Runner.Keyed) {
+            ((Runner.Keyed) runner).post(key, new PostTask(this, eventKey, eventName, eventObject, key));
+        } else if (runner instanceof Runner.Direct) {
+            if (eventKey != null) {
+                ((Runner.Direct) runner).post(this, eventKey, eventObject);
+            } else {
+                ((Runner.Direct) runner).post(this, eventName, eventObject);
+            }
         } else {
-            LOGGER.info("EventBus: <" + eventBusName + "> holder already registered, skipped: " + holder.getType());
-            holder = existingHolder;
+            runner.post(new PostTask(this, eventKey, eventName, eventObject, key));
         }
-        return holder;
     }
 
     /**
-     * Updates the holder and keeps its order in the queue.
+     * Applies the rate limit of event bus.
      *
-     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     * @return true if event must be posted now
      */
-    public void update(final T holder) {
-        if (holder == null || holder.getType() == null || holder.getType().length() == 0) {
-            LOGGER.severe("EventBus: <" + eventBusName + "> update failed, holder " + holder + " is not defined or invalid.");
-            return;
+    private boolean admit(String eventName, Object eventObject, Object key) {
+        Map<String, RateLimiter> rateLimits = this.rateLimits;
+        if (rateLimits.isEmpty()) {
+            return true;
         }
-        if (!holders.containsKey(holder.getType())) {
-            LOGGER.severe("EventBus: <" + eventBusName + "> update failed, holder " + holder.getType() + " was not registered before.");
-            return;
+        RateLimiter limiter = rateLimits.get(eventName);
+        if (limiter == null || limiter.offer(eventObject, key)) {
+            return true;
         }
-        holders.put(holder.getType(), holder);
-        LOGGER.info("EventBus: <" + eventBusName + "> holder updated: " + holder.getType());
+        EventBusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.filtered();
+        }
+        return false;
     }
 
     /**
-     * Unregisters the holder from event bus by its type.
+     * Applies the rate limit of holder.
      *
-     * @param type type
+     * @return true if holder must receive event now
      */
-    public void unregister(String type) {
-        if (holders.containsKey(type)) {
-            T holder = holders.get(type);
-            unregister(holder);
-        } else {
-            LOGGER.severe("EventBus: <" + eventBusName + "> unregister failed, holder not found: " + type);
+    private boolean admit(EntityHolder holder, String eventName, Object eventObject) {
+        Map<String, RateLimiter> limits = holderRateLimits.get(holder.getType());
+        if (limits == null) {
+            return true;
         }
+        RateLimiter limiter = limits.get(eventName);
+        return limiter == null || limiter.offer(eventObject, null);
     }
 
     /**
-     * Unregisters the holder from event bus.
+     * Limits the rate of event in this event bus, for all holders. Debounced events are posted by
+     * the shared {@link HashedWheelTimer} into the runner of event bus.
      *
-     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     * @param eventName any not empty event name, i.e. "progress"
+     * @param limit     limit of rate, see {@link RateLimit#debounce} and {@link RateLimit#throttle};
+     *                  null removes the limit
      */
-    public void unregister(final T holder) {
-        if (holder == null || holder.getType() == null || holder.getType().length() == 0) {
-            LOGGER.severe("EventBus: <" + eventBusName + "> unregister failed, holder is not defined.");
-            return;
+    public void setRateLimit(final String eventName, RateLimit limit) {
+        synchronized (lock) {
+            Map<String, RateLimiter> copy = new HashMap<>(rateLimits);
+            if (limit == null) {
+                copy.remove(eventName);
+            } else {
+                copy.put(eventName, new RateLimiter(limit, new RateLimiter.Emitter() {
+                    @Override
+                    public void emit(Object eventObject, Object key) {
+                        if (eventObject instanceof Received) {
+                            enqueue(null, eventName, ((Received) eventObject).eventObject, key);
+                        } else {
+                            forward(eventName, eventObject);
+                            enqueue(null, eventName, eventObject, key);
+                        }
+                    }
+                }));
+            }
+            rateLimits = Collections.unmodifiableMap(copy);
         }
-        try {
-            getRunner().post(new Runnable() {
+    }
+
+    public RateLimit getRateLimit(String eventName) {
+        RateLimiter limiter = rateLimits.get(eventName);
+        return limiter != null ? limiter.getLimit() : null;
+    }
+
+    /**
+     * Returns the number of events suppressed by rate limits of event bus and of its holders.
+     *
+     * @param eventName any not empty event name, i.e. "progress"
+     */
+    public long getSuppressedCount(String eventName) {
+        long count = 0;
+        RateLimiter limiter = rateLimits.get(eventName);
+        if (limiter != null) {
+            count += limiter.getSuppressed();
+        }
+        for (Map<String, RateLimiter> limits : holderRateLimits.values()) {
+            limiter = limits.get(eventName);
+            if (limiter != null) {
+                count += limiter.getSuppressed();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return limiters of holder by event name or null if holder does not limit events
+     */
+    private Map<String, RateLimiter> createRateLimits(final T holder) {
+        if (!(holder instanceof RateLimitedEntityHolder)) {
+            return null;
+        }
+        Map<String, RateLimit> limits = ((RateLimitedEntityHolder) holder).rateLimits();
+        if (limits == null || limits.isEmpty()) {
+            return null;
+        }
+        Map<String, RateLimiter> result = new HashMap<>();
+        for (Map.Entry<String, RateLimit> entry : limits.entrySet()) {
+            final String eventName = entry.getKey();
+            result.put(eventName, new RateLimiter(entry.getValue(), new RateLimiter.Emitter() {
                 @Override
-                public void run() {
-                    try {
-                        holder.finish();
-                        LOGGER.info("EventBus: <" + eventBusName + "> holder finished: " + holder);
-                    } catch (Exception e) {
-                        LOGGER.severe("EventBus: <" + eventBusName + "> and holder " + holder);
-                        e.printStackTrace();
-                    }
+                public void emit(final Object eventObject, Object key) {
+                    getRunner().post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (holders.get(holder.getType()) != holder) {
+                                return;
+                            }
+                            try {
+                                holder.onEvent(eventName, eventObject);
+                            } catch (Exception e) {
+                                LOGGER.severe("EventBus: <" + eventBusName + ">, post failed for holder: " + holder + ", eventName: " + eventName + ", eventObject: " + eventObject);
+                                e.printStackTrace();
+                            }
+                        }
+                    });
                 }
-            });
-            holders.remove(holder.getType());
-            LOGGER.info("EventBus: <" + eventBusName + "> holder unregistered: " + holder);
+            }));
+        }
+        return result;
+    }
 
-            Iterator<Map.Entry<String, Map<String, T>>> iter = events.entrySet().iterator();
-            while (iter.hasNext()) {
-                Map.Entry<String, Map<String, T>> entry = iter.next();
-                if (entry.getValue().containsKey(holder.getType())) {
-                    entry.getValue().remove(holder.getType());
-                }
-                if (entry.getValue().size() == 0) {
-                    iter.remove();
-                }
+    private void putRateLimits(String type, Map<String, RateLimiter> limits) {
+        if (limits != null) {
+            holderRateLimits.put(type, limits);
+        } else {
+            holderRateLimits.remove(type);
+        }
+    }
+
+    /**
+     * Posts the event and returns its future. Future completes when all targeted holders have
+     * handled the event or when {@link PostEvent#getMaxFulfillment()} holders have handled it; in
+     * the last case next holders are not called.
+     * <p>
+     * Rate limits of bus ({@link #setRateLimit(String, RateLimit)}) and conflation
+     * ({@link #setConflated(String, boolean)}) do not apply to this event: suppressed or replaced
+     * event would never complete its future.
+     *
+     * @param event event with name and object
+     * @return future of the event
+     */
+    public <E> CompletableFuture<PostEvent<E>> post(PostEvent<E> event) {
+        FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+        Object trace = recorder != null ? recorder.begin(recorder.post) : null;
+        checkInspection(event.getEventName());
+        KeyExtractor keyExtractor = this.keyExtractor;
+        Object key = keyExtractor != null ? keyExtractor.extract(event.getEventName(), event.getEventObject()) : null;
+        PostTask task = new PostTask(this, event, key);
+        forward(event.getEventName(), event.getEventObject());
+        EventBusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.posted(1);
+        }
+        EventJournal journal = this.journal;
+        if (journal != null) {
+            task.offset = journal.append(event.getEventName(), event.getEventObject());
+        }
+        Runner runner = getRunner();
+        if (recorder != null) {
+            recorder.instant(recorder.enqueue, eventBusName, event.getEventName(), FlightRecorderEvents.id(event.getEventObject()), runner.getClass().getName());
+        }
+        try {
+            if (key != null && runner instanceof Runner.Keyed) {
+                ((Runner.Keyed) runner).post(key, task);
+            } else {
+                runner.post(task);
             }
-        } catch (Exception e) {
-            LOGGER.severe("EventBus: <" + eventBusName + "> unregister failed for holder: " + holder);
-            e.printStackTrace();
+        } catch (RuntimeException e) {
+            acknowledge(task.offset);
+            throw e;
+        }
+        if (trace != null) {
+            recorder.commit(recorder.post, trace, eventBusName, event.getEventName(), FlightRecorderEvents.id(event.getEventObject()), true);
         }
+        return event.getFuture();
     }
 
-    public interface Runner {
-        void post(Runnable runnable);
+    /**
+     * Posts the event to holders synchronously in the current thread, bypassing the runner, then
+     * completes its future.
+     *
+     * @param event event with name and object
+     */
+    public void dispatch(PostEvent<?> event) {
+        String eventName = event.getEventName();
+        deliver(eventName, dispatchTable.lookup(eventName), event.getEventObject(), event, null);
+        event.setFulfilled(true);
+    }
+
+    /**
+     * Posts the event after the delay, in the runner of event bus.
+     *
+     * @param eventName   any not empty event name, i.e. "event1"
+     * @param eventObject any object that will be sent together with event name
+     * @param delay       delay of posting
+     * @param unit        unit of delay
+     * @return handle that cancels posting
+     */
+    public ScheduledPost postDelayed(String eventName, Object eventObject, long delay, TimeUnit unit) {
+        return new ScheduledPost(this, eventName, eventObject, Math.max(0, unit.toNanos(delay)), 0);
+    }
+
+    /**
+     * Posts the event at the time given, in the runner of event bus.
+     *
+     * @param timeMillis time of posting, in milliseconds since epoch
+     * @return handle that cancels posting
+     */
+    public ScheduledPost postAt(String eventName, Object eventObject, long timeMillis) {
+        return postDelayed(eventName, eventObject, timeMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Posts the event with fixed rate until cancelled, in the runner of event bus.
+     *
+     * @param initialDelay delay of first posting
+     * @param period       period of next postings
+     * @param unit         unit of delay and period
+     * @return handle that cancels posting
+     */
+    public ScheduledPost postPeriodically(String eventName, Object eventObject, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("EventBus: <" + eventBusName + ">, period must be positive.");
+        }
+        return new ScheduledPost(this, eventName, eventObject, Math.max(0, unit.toNanos(initialDelay)), unit.toNanos(period));
+    }
+
+    /**
+     * Asks holders implementing {@link ResponderEntityHolder} and returns the future of the first
+     * not null reply. Future completes by null if no responder replied and fails with
+     * {@link java.util.concurrent.TimeoutException} if there is no reply in the time given. Other
+     * holders are not called.
+     *
+     * @param eventName   any not empty event name, i.e. "event1"
+     * @param eventObject payload of request
+     * @param timeout     time to wait for reply
+     * @param unit        unit of timeout
+     * @return future of reply
+     */
+    public <R> CompletableFuture<R> request(String eventName, Object eventObject, long timeout, TimeUnit unit) {
+        checkInspection(eventName);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<R> future = (CompletableFuture<R>) request(new RequestTask(this, eventName, eventObject, false), timeout, unit);
+        return future;
+    }
+
+    /**
+     * Same as {@link #request(String, Object, long, TimeUnit)} but collects not null replies of all
+     * responders. On timeout the future completes by replies received so far.
+     *
+     * @return future of replies, in order of receiving
+     */
+    public <R> CompletableFuture<List<R>> requestAll(String eventName, Object eventObject, long timeout, TimeUnit unit) {
+        checkInspection(eventName);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<List<R>> future = (CompletableFuture<List<R>>) (CompletableFuture<?>) request(new RequestTask(this, eventName, eventObject, true), timeout, unit);
+        return future;
+    }
+
+    private CompletableFuture<Object> request(final RequestTask task, long timeout, TimeUnit unit) {
+        final HashedWheelTimer.Timeout expiration = HashedWheelTimer.getShared().schedule(new Runnable() {
+            @Override
+            public void run() {
+                task.expire();
+            }
+        }, timeout, unit);
+        task.getFuture().whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object reply, Throwable throwable) {
+                expiration.cancel();
+            }
+        });
+        try {
+            getRunner().post(task);
+        } catch (RuntimeException e) {
+            expiration.cancel();
+            task.getFuture().completeExceptionally(e);
+            throw e;
+        }
+        return task.getFuture();
+    }
+
+    /**
+     * Switches conflation of the event. Pending event that is not dispatched yet is replaced by
+     * next event with the same name and key, so holders receive at most one pending update for
+     * each key. Key is the ordering key of {@link #postByKey(String, Object, Object)} or the key
+     * given by {@link KeyExtractor}.
+     *
+     * @param eventName  any not empty event name, i.e. "location"
+     * @param conflated  true to conflate the event
+     */
+    public void setConflated(String eventName, boolean conflated) {
+        conflator.setConflated(eventName, conflated);
+    }
+
+    public boolean isConflated(String eventName) {
+        return conflator.isConflated(eventName);
+    }
+
+    /**
+     * Returns the number of events replaced by newer ones since creation of event bus.
+     */
+    public long getConflatedCount() {
+        return conflator.getConflated();
+    }
+
+    /**
+     * Makes the event sticky. Event bus keeps the last dispatched object of sticky event and
+     * delivers it to each holder registered later, right after {@link EntityHolder#start()} in the
+     * same runner. Other holders do not receive it again.
+     *
+     * @param eventName any not empty event name, i.e. "location"
+     * @param sticky    false also removes the kept object
+     */
+    public void setSticky(String eventName, boolean sticky) {
+        this.sticky.setSticky(eventName, sticky);
+    }
+
+    public boolean isSticky(String eventName) {
+        return sticky.isSticky(eventName);
+    }
+
+    /**
+     * Limits the number of kept sticky objects, the least recently posted one is evicted first.
+     * Default is {@value StickyCache#DEFAULT_CAPACITY}.
+     */
+    public void setStickyCapacity(int capacity) {
+        sticky.setCapacity(capacity);
+    }
+
+    public int getStickyCapacity() {
+        return sticky.getCapacity();
+    }
+
+    /**
+     * Returns the last dispatched object of sticky event or null.
+     */
+    public Object getStickyEvent(String eventName) {
+        return sticky.get(eventName);
+    }
+
+    /**
+     * Removes the kept object of sticky event, so holders registered later will not receive it.
+     *
+     * @return true if object was kept
+     */
+    public boolean removeStickyEvent(String eventName) {
+        return sticky.remove(eventName);
+    }
+
+    /**
+     * Posts holder lifecycle callback. Keyed runner performs it between events of all keys.
+     */
+    private void postLifecycle(Runnable runnable) {
+        Runner runner = getRunner();
+        if (runner instanceof Runner.Keyed) {
+            ((Runner.Keyed) runner).postAll(runnable);
+        } else {
+            runner.post(runnable);
+        }
+    }
+
+    /**
+     * Delivers kept objects to the new holder like events, except objects that were dispatched
+     * after the holder had been registered and so have reached it already.
+     */
+    private void replaySticky(T holder) {
+        if (!sticky.isEnabled()) {
+            return;
+        }
+        EntityHolder[] target = new EntityHolder[]{holder};
+        for (Map.Entry<String, StickyCache.Value> entry : sticky.snapshot()) {
+            if (entry.getValue().isDispatchedTo(holder)) {
+                continue;
+            }
+            for (EntityHolder h : dispatchTable.lookup(entry.getKey())) {
+                if (h == holder) {
+                    call(entry.getKey(), target, entry.getValue().eventObject, null, null);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches collecting of metrics: counts of events, latencies of dispatching and of holders.
+     * Metrics are disabled by default; disabled metrics cost one volatile read per event.
+     * Disabling removes collected metrics and their MBeans.
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        synchronized (lock) {
+            EventBusMetrics metrics = this.metrics;
+            if (enabled && metrics == null) {
+                this.metrics = new EventBusMetrics(eventBusName);
+            } else if (!enabled && metrics != null) {
+                this.metrics = null;
+                metrics.unexport();
+            }
+        }
+    }
+
+    public boolean isMetricsEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * @return metrics of event bus or null if they are disabled, see {@link #setMetricsEnabled}
+     */
+    public EventBusMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the watchdog of slow holders, see {@link HolderWatchdog}. Each call of holder is marked
+     * while the watchdog is set, that costs reading the clock per holder.
+     *
+     * @param watchdog watchdog or null to remove it
+     */
+    public void setWatchdog(HolderWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    public HolderWatchdog getWatchdog() {
+        return watchdog;
+    }
+
+    /**
+     * Moves the holder into its own lane: next events are delivered to it in the thread of lane
+     * instead of the runner of bus, so the slow holder does not delay others. Quarantined holder
+     * keeps the order of its events but can not interrupt other holders by returning false and is
+     * not awaited by {@link PostEvent}. If the holder is handling the event in other thread at this
+     * moment, its lane may start before this call ends; {@link HolderWatchdog} waits for the end
+     * of the slow call before the lane starts.
+     *
+     * @param type type of holder, see {@link EntityHolder#getType()}
+     */
+    public void quarantine(String type) {
+        quarantine(type, null);
+    }
+
+    /**
+     * @param handOff the first task of lane that waits for the end of the call in progress, may be
+     *                null
+     */
+    void quarantine(String type, Runnable handOff) {
+        if (quarantined.containsKey(type)) {
+            return;
+        }
+        Runner lane = new SerialRunner();
+        if (handOff != null) {
+            lane.post(handOff);
+        }
+        if (quarantined.putIfAbsent(type, lane) == null) {
+            LOGGER.warning("EventBus: <" + eventBusName + ">, holder quarantined: " + type);
+        }
+    }
+
+    /**
+     * Returns the holder from quarantine, next events are delivered to it by runner of bus.
+     * Events that are still waiting in its lane may be delivered after newer ones.
+     *
+     * @param type type of holder, see {@link EntityHolder#getType()}
+     */
+    public void release(String type) {
+        if (quarantined.remove(type) != null) {
+            LOGGER.info("EventBus: <" + eventBusName + ">, holder released from quarantine: " + type);
+        }
+    }
+
+    public boolean isQuarantined(String type) {
+        return quarantined.containsKey(type);
+    }
+
+    public Set<String> getQuarantined() {
+        return Collections.unmodifiableSet(quarantined.keySet());
+    }
+
+    /**
+     * Counts the posted event that was replaced by newer one or dropped by the runner.
+     */
+    void discarded() {
+        EventBusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.dropped();
+        }
+    }
+
+    /**
+     * Sets the journal that keeps posted events until they are dispatched. Each posted event is
+     * appended to the journal before it is passed to the runner, so it is not lost if the process
+     * crashes. Events that were not dispatched before the crash are posted again by
+     * {@link EventJournal#replay(EventBus)}. Runners that post events directly, like
+     * {@link RingBufferRunner}, receive them as runnables while the journal is set.
+     *
+     * @param journal journal or null to stop journaling
+     */
+    public void setJournal(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Posts the event read from journal without appending it again.
+     */
+    void redeliver(String eventName, Object eventObject, long offset) {
+        KeyExtractor keyExtractor = this.keyExtractor;
+        route(null, eventName, eventObject, keyExtractor != null ? keyExtractor.extract(eventName, eventObject) : null, offset);
+    }
+
+    /**
+     * Marks the event as dispatched in journal.
+     *
+     * @param offset offset of event in {@link EventJournal} or -1
+     */
+    void acknowledge(long offset) {
+        EventJournal journal = this.journal;
+        if (offset >= 0 && journal != null) {
+            journal.acknowledge(offset);
+        }
+    }
+
+    EntityHolder[] responders(String eventName) {
+        return dispatchTable.responders(eventName);
+    }
+
+    /**
+     * Posts the batch of events as one unit, so runner is called once for the whole batch. Events
+     * are dispatched in order of the list. Holders implementing {@link BatchEntityHolder} receive
+     * their events of the batch by one call. Like {@link #post(PostEvent)}, events of batch are not
+     * rate limited by bus and not conflated.
+     *
+     * @param events list of events, must not be changed after posting
+     */
+    public void postBatch(final List<? extends PostEvent<?>> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        for (PostEvent<?> event : events) {
+            checkInspection(event.getEventName());
+        }
+        for (PostEvent<?> event : events) {
+            forward(event.getEventName(), event.getEventObject());
+        }
+        EventBusMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.posted(events.size());
+        }
+        EventJournal journal = this.journal;
+        final long[] offsets = journal != null ? new long[events.size()] : null;
+        if (journal != null) {
+            for (int i = 0; i < offsets.length; i++) {
+                offsets[i] = journal.append(events.get(i).getEventName(), events.get(i).getEventObject());
+            }
+        }
+        Runnable batch = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    dispatchBatch(events);
+                } finally {
+                    if (offsets != null) {
+                        for (long offset : offsets) {
+                            acknowledge(offset);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "EventBus: <" + eventBusName + "> batch of " + events.size() + " events";
+            }
+        };
+        try {
+            getRunner().post(batch);
+        } catch (RuntimeException e) {
+            if (offsets != null) {
+                for (long offset : offsets) {
+                    acknowledge(offset);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Posts the batch of events to holders synchronously in the current thread, bypassing the
+     * runner, then completes futures of events.
+     *
+     * @param events list of events
+     */
+    public void dispatchBatch(List<? extends PostEvent<?>> events) {
+        DispatchTable table = dispatchTable;
+        Map<EntityHolder, List<PostEvent<?>>> batches = new IdentityHashMap<>();
+        for (PostEvent<?> event : events) {
+            deliver(event.getEventName(), table.lookup(event.getEventName()), event.getEventObject(), event, batches);
+        }
+        if (!batches.isEmpty()) {
+            EventBusMetrics metrics = this.metrics;
+            for (EntityHolder holder : table.getHolders()) {
+                List<PostEvent<?>> batch = batches.get(holder);
+                if (batch == null) {
+                    continue;
+                }
+                long start = metrics != null ? System.nanoTime() : 0;
+                FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+                Object trace = recorder != null ? recorder.begin(recorder.handle) : null;
+                try {
+                    ((BatchEntityHolder) holder).onEvents(batch);
+                    if (metrics != null) {
+                        metrics.holder(holder).handled(System.nanoTime() - start, batch.size());
+                    }
+                    if (trace != null) {
+                        recorder.commit(recorder.handle, trace, eventBusName, null, 0, holder.getType(), "batch of " + batch.size());
+                    }
+                    for (PostEvent<?> event : batch) {
+                        event.increaseCounter();
+                    }
+                } catch (Exception e) {
+                    if (metrics != null) {
+                        metrics.holder(holder).failed(System.nanoTime() - start);
+                        metrics.failed();
+                    }
+                    if (trace != null) {
+                        recorder.commit(recorder.handle, trace, eventBusName, null, 0, holder.getType(), "failed");
+                    }
+                    LOGGER.severe("EventBus: <" + eventBusName + ">, post failed for holder: " + holder + ", batch of " + batch.size() + " events.");
+                    e.printStackTrace();
+                }
+            }
+        }
+        for (PostEvent<?> event : events) {
+            event.setFulfilled(true);
+        }
+    }
+
+    private void checkInspection(String eventName) {
+        if (!inspect.isEmpty()) {
+            Set<String> reported = inspect.get(eventName);
+            if (reported != null && reported.add(eventBusName)) {
+                LOGGER.severe("EventBus: <" + eventBusName + ">, inspection for eventName " + eventName + " caught:");
+                Thread.dumpStack();
+            }
+        }
+    }
+
+    /**
+     * Posts event to holders synchronously in the current thread, bypassing the runner. Is used
+     * by runners to deliver events, see {@link Runner.Direct}.
+     *
+     * @param eventName   any not empty event name, i.e. "event1"
+     * @param eventObject any object that will be sent together with event name
+     */
+    public void dispatch(String eventName, Object eventObject) {
+        deliver(eventName, dispatchTable.lookup(eventName), eventObject, null, null);
+    }
+
+    /**
+     * Posts typed event to holders synchronously in the current thread, bypassing the runner.
+     *
+     * @param eventKey    key of event, see {@link EventKey}
+     * @param eventObject object that will be sent together with event
+     */
+    public void dispatch(EventKey<?> eventKey, Object eventObject) {
+        deliver(eventKey.getName(), dispatchTable.lookup(eventKey), eventObject, null, null);
+    }
+
+    /**
+     * Calls holders one by one until some of them returns false.
+     *
+     * @param event   event that counts holders that have handled it, or null
+     * @param batches if not null then collects events for {@link BatchEntityHolder} instead of
+     *                calling them
+     */
+    private void deliver(String eventName, EntityHolder[] holders, Object eventObject, PostEvent<?> event, Map<EntityHolder, List<PostEvent<?>>> batches) {
+        if (sticky.isSticky(eventName)) {
+            sticky.put(eventName, eventObject, holders);
+        }
+        call(eventName, holders, eventObject, event, batches);
+    }
+
+    /**
+     * Same as {@link #deliver(String, EntityHolder[], Object, PostEvent, Map)} but does not keep
+     * the sticky object, used by replay of sticky events.
+     */
+    private void call(String eventName, EntityHolder[] holders, Object eventObject, PostEvent<?> event, Map<EntityHolder, List<PostEvent<?>>> batches) {
+        boolean fine = LOGGER.isLoggable(Level.FINE);
+        if (fine) {
+            LOGGER.fine("EventBus: <" + eventBusName + ">, starting postSync for eventName: " + eventName + ", eventObject: " + eventObject);
+        }
+        EventBusMetrics metrics = this.metrics;
+        HolderWatchdog watchdog = this.watchdog;
+        HolderWatchdog.Slot slot = watchdog != null ? watchdog.slot() : null;
+        // the end of one holder is the start of the next one, so the clock is read once per holder
+        boolean timed = metrics != null || slot != null;
+        long start = timed ? System.nanoTime() : 0;
+        long last = start;
+        FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+        Object trace = recorder != null ? recorder.begin(recorder.dispatch) : null;
+        for (EntityHolder holder : holders) {
+            HolderMetrics holderMetrics = null;
+            long handleStart = 0;
+            Object handleTrace = null;
+            try {
+                if (fine) {
+                    LOGGER.fine("EventBus: <" + eventBusName + "> holder: " + holder + ", eventName: " + eventName + ", eventObject: " + eventObject);
+                }
+                if (holder instanceof RateLimitedEntityHolder && !admit(holder, eventName, eventObject)) {
+                    if (metrics != null) {
+                        metrics.holder(holder).filtered();
+                    }
+                    continue;
+                }
+                if (batches != null && holder instanceof BatchEntityHolder) {
+                    List<PostEvent<?>> batch = batches.get(holder);
+                    if (batch == null) {
+                        batch = new ArrayList<>();
+                        batches.put(holder, batch);
+                    }
+                    batch.add(event);
+                    continue;
+                }
+                if (!quarantined.isEmpty()) {
+                    Runner lane = quarantined.get(holder.getType());
+                    if (lane != null) {
+                        deliverQuarantined(lane, holder, eventName, eventObject);
+                        continue;
+                    }
+                }
+                if (metrics != null) {
+                    holderMetrics = metrics.holder(holder);
+                }
+                handleStart = last;
+                if (slot != null) {
+                    slot.begin(this, holder, eventName, handleStart);
+                }
+                if (recorder != null) {
+                    handleTrace = recorder.begin(recorder.handle);
+                }
+                boolean proceed = holder.onEvent(eventName, eventObject);
+                if (handleTrace != null) {
+                    recorder.commit(recorder.handle, handleTrace, eventBusName, eventName, FlightRecorderEvents.id(eventObject), holder.getType(), proceed ? "proceed" : "interrupt");
+                }
+                if (timed) {
+                    last = System.nanoTime();
+                }
+                if (slot != null) {
+                    slot.end();
+                }
+                if (holderMetrics != null) {
+                    holderMetrics.handled(last - handleStart, proceed);
+                }
+                if (!proceed) {
+                    if (metrics != null) {
+                        metrics.interrupted();
+                    }
+                    if (event != null) {
+                        event.increaseCounter();
+                    }
+                    break;
+                }
+                if (event != null && event.acknowledge()) {
+                    break;
+                }
+            } catch (Exception e) {
+                if (timed) {
+                    last = System.nanoTime();
+                }
+                if (slot != null) {
+                    slot.end();
+                }
+                if (holderMetrics != null) {
+                    holderMetrics.failed(last - handleStart);
+                    metrics.failed();
+                }
+                if (handleTrace != null) {
+                    recorder.commit(recorder.handle, handleTrace, eventBusName, eventName, FlightRecorderEvents.id(eventObject), holder.getType(), "failed");
+                }
+                LOGGER.severe("EventBus: <" + eventBusName + ">, post failed for holder: " + holder + ", eventName: " + eventName + ", eventObject: " + eventObject + ". Use EventBus.inspect(\"" + eventName + "\"); to resolve the issue.");
+                e.printStackTrace();
+            }
+        }
+        if (metrics != null) {
+            metrics.dispatched(last - start);
+        }
+        if (trace != null) {
+            recorder.commit(recorder.dispatch, trace, eventBusName, eventName, FlightRecorderEvents.id(eventObject), holders.length);
+        }
+    }
+
+    /**
+     * Calls the quarantined holder in its lane. The holder can not interrupt other holders and is
+     * not counted by {@link PostEvent}.
+     */
+    private void deliverQuarantined(Runner lane, final EntityHolder holder, final String eventName, final Object eventObject) {
+        lane.post(new Runnable() {
+            @Override
+            public void run() {
+                EventBusMetrics metrics = EventBus.this.metrics;
+                long start = metrics != null ? System.nanoTime() : 0;
+                FlightRecorderEvents recorder = FlightRecorderEvents.recorder();
+                Object trace = recorder != null ? recorder.begin(recorder.handle) : null;
+                try {
+                    boolean proceed = holder.onEvent(eventName, eventObject);
+                    if (metrics != null) {
+                        metrics.holder(holder).handled(System.nanoTime() - start, proceed);
+                    }
+                    if (trace != null) {
+                        recorder.commit(recorder.handle, trace, eventBusName, eventName, FlightRecorderEvents.id(eventObject), holder.getType(), "quarantined");
+                    }
+                } catch (Exception e) {
+                    if (metrics != null) {
+                        metrics.holder(holder).failed(System.nanoTime() - start);
+                        metrics.failed();
+                    }
+                    if (trace != null) {
+                        recorder.commit(recorder.handle, trace, eventBusName, eventName, FlightRecorderEvents.id(eventObject), holder.getType(), "failed");
+                    }
+                    LOGGER.severe("EventBus: <" + eventBusName + ">, post failed for quarantined holder: " + holder + ", eventName: " + eventName + ", eventObject: " + eventObject);
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    /**
+     * Will post runnable in the same queue with events.
+     *
+     * @param runnable redefine {@link Runnable}
+     */
+    public void postRunnable(Runnable runnable) {
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("EventBus: <" + eventBusName + ">, starting runnable: " + runnable);
+        }
+        getRunner().post(runnable);
+    }
+
+    /**
+     * Registers the holder in event bus.
+     *
+     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     */
+    public void register(final T holder) {
+        T existingHolder = attach(holder);
+        if (existingHolder != null) {
+            LOGGER.severe("EventBus: <" + eventBusName + "> registration failed, holder <" + holder.getType() + "> already defined. " + holder.getClass());
+        }
+    }
+
+    /**
+     * Registers the holder in event bus or updates if it already exists.
+     *
+     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     */
+    public void registerOrUpdate(T holder) {
+        if (attach(holder) != null) {
+            update(holder);
+        }
+    }
+
+    /**
+     * Registers the holder in event bus only if it is not registered.
+     *
+     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     * @return registered holder
+     */
+    public T registerIfAbsent(T holder) {
+        T existingHolder = attach(holder);
+        if (existingHolder != null) {
+            LOGGER.info("EventBus: <" + eventBusName + "> holder already registered, skipped: " + holder.getType());
+            holder = existingHolder;
+        }
+        return holder;
+    }
+
+    /**
+     * Adds the holder to the event bus atomically and posts its {@link EntityHolder#start()}.
+     *
+     * @return holder of the same type that was registered before, or null if holder has been
+     * registered now or is invalid
+     */
+    private T attach(final T holder) {
+        if (holder == null || holder.getType() == null || holder.getType().length() == 0) {
+            LOGGER.severe("EventBus: <" + eventBusName + "> registration failed, holder is not defined or invalid.");
+            return null;
+        }
+        T existingHolder = holders.get(holder.getType());
+        if (existingHolder != null) {
+            return existingHolder;
+        }
+        holder.setLoggingLevel(getLoggingLevel());
+
+        //noinspection unchecked
+        List<String> events = holder.events();
+        Map<String, RateLimiter> limits = createRateLimits(holder);
+
+        synchronized (lock) {
+            existingHolder = holders.get(holder.getType());
+            if (existingHolder != null) {
+                return existingHolder;
+            }
+            if (events != null) {
+                for (String event : events) {
+                    Map<String, T> hs;
+                    if (this.events.containsKey(event)) {
+                        hs = this.events.get(event);
+                    } else {
+                        hs = new HashMap<>();
+                        this.events.put(event, hs);
+                    }
+                    hs.put(holder.getType(), holder);
+                }
+                LOGGER.config("EventBus: <" + eventBusName + "> holder " + holder.getType() + " catches following events: " + events);
+            }
+
+            putRateLimits(holder.getType(), limits);
+            Map<String, T> copy = new LinkedHashMap<>(holders);
+            copy.put(holder.getType(), holder);
+            holders = Collections.unmodifiableMap(copy);
+            rebuildDispatchTable();
+        }
+        postLifecycle(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    holder.start();
+                } catch (Exception e) {
+                    LOGGER.severe("EventBus: <" + eventBusName + "> and holder " + holder);
+                    e.printStackTrace();
+                }
+                replaySticky(holder);
+            }
+        });
+        LOGGER.info("EventBus: <" + eventBusName + "> holder registered: " + holder.getType());
+        return null;
+    }
+
+    /**
+     * Updates the holder and keeps its order in the queue.
+     *
+     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     */
+    public void update(final T holder) {
+        if (holder == null || holder.getType() == null || holder.getType().length() == 0) {
+            LOGGER.severe("EventBus: <" + eventBusName + "> update failed, holder " + holder + " is not defined or invalid.");
+            return;
+        }
+        Map<String, RateLimiter> limits = createRateLimits(holder);
+        synchronized (lock) {
+            if (!holders.containsKey(holder.getType())) {
+                LOGGER.severe("EventBus: <" + eventBusName + "> update failed, holder " + holder.getType() + " was not registered before.");
+                return;
+            }
+            putRateLimits(holder.getType(), limits);
+            Map<String, T> copy = new LinkedHashMap<>(holders);
+            copy.put(holder.getType(), holder);
+            holders = Collections.unmodifiableMap(copy);
+            rebuildDispatchTable();
+        }
+        LOGGER.info("EventBus: <" + eventBusName + "> holder updated: " + holder.getType());
+    }
+
+    /**
+     * Unregisters the holder from event bus by its type.
+     *
+     * @param type type
+     */
+    public void unregister(String type) {
+        T holder = holders.get(type);
+        if (holder != null) {
+            unregister(holder);
+        } else {
+            LOGGER.severe("EventBus: <" + eventBusName + "> unregister failed, holder not found: " + type);
+        }
+    }
+
+    /**
+     * Unregisters the holder from event bus.
+     *
+     * @param holder must implement {@link EntityHolder}, may be an instance of {@link AbstractEntityHolder}
+     */
+    public void unregister(final T holder) {
+        if (holder == null || holder.getType() == null || holder.getType().length() == 0) {
+            LOGGER.severe("EventBus: <" + eventBusName + "> unregister failed, holder is not defined.");
+            return;
+        }
+        try {
+            postLifecycle(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        holder.finish();
+                        LOGGER.info("EventBus: <" + eventBusName + "> holder finished: " + holder);
+                    } catch (Exception e) {
+                        LOGGER.severe("EventBus: <" + eventBusName + "> and holder " + holder);
+                        e.printStackTrace();
+                    }
+                }
+            });
+            synchronized (lock) {
+                Map<String, T> copy = new LinkedHashMap<>(holders);
+                copy.remove(holder.getType());
+                holders = Collections.unmodifiableMap(copy);
+                holderRateLimits.remove(holder.getType());
+                quarantined.remove(holder.getType());
+
+                Iterator<Map.Entry<String, Map<String, T>>> iter = events.entrySet().iterator();
+                while (iter.hasNext()) {
+                    Map.Entry<String, Map<String, T>> entry = iter.next();
+                    if (entry.getValue().containsKey(holder.getType())) {
+                        entry.getValue().remove(holder.getType());
+                    }
+                    if (entry.getValue().size() == 0) {
+                        iter.remove();
+                    }
+                }
+                rebuildDispatchTable();
+            }
+            LOGGER.info("EventBus: <" + eventBusName + "> holder unregistered: " + holder);
+        } catch (Exception e) {
+            LOGGER.severe("EventBus: <" + eventBusName + "> unregister failed for holder: " + holder);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Precomputes holders for each event, must be called under the lock after any change of holders
+     * or events.
+     */
+    private void rebuildDispatchTable() {
+        dispatchTable = new DispatchTable(holders, events);
+    }
+
+    public interface Runner {
+        void post(Runnable runnable);
+
+        /**
+         * Creates runner for the event bus specified.
+         */
+        interface Factory {
+            Runner create(String eventBusName);
+        }
+
+        /**
+         * Runner that keeps the order of runnables only for the same key, i.e. {@link PartitionedRunner}.
+         */
+        interface Keyed extends Runner {
+            void post(Object key, Runnable runnable);
+
+            /**
+             * Performs the runnable after runnables posted before it with any key and before
+             * runnables posted after it, i.e. {@link EntityHolder#start()}.
+             */
+            void postAll(Runnable runnable);
+        }
+
+        /**
+         * Runner that takes events directly instead of runnables, so posting does not allocate,
+         * i.e. {@link RingBufferRunner}. Runner must call {@link EventBus#dispatch(String, Object)}
+         * to deliver the event.
+         */
+        interface Direct extends Runner {
+            void post(EventBus<?> eventBus, String eventName, Object eventObject);
+
+            /**
+             * Runner must call {@link EventBus#dispatch(EventKey, Object)} to deliver the event.
+             */
+            void post(EventBus<?> eventBus, EventKey<?> eventKey, Object eventObject);
+        }
+    }
+
+    /**
+     * Passes events posted into the bus out of the process, i.e. {@link SharedMemoryBridge}.
+     * Events that came back must be posted by {@link EventBus#receive(String, Object)}.
+     */
+    public interface Forwarder {
+        void forward(EventBus<?> eventBus, String eventName, Object eventObject);
+    }
+
+    /**
+     * Gets the ordering key from event, i.e. user id from event object.
+     */
+    public interface KeyExtractor {
+        Object extract(String eventName, Object eventObject);
+    }
+
+    /**
+     * Object of event that came from other process, while it is postponed by rate limit. Such
+     * event is not forwarded when it is emitted.
+     */
+    private static final class Received {
+        private final Object eventObject;
+
+        private Received(Object eventObject) {
+            this.eventObject = eventObject;
+        }
     }
 }
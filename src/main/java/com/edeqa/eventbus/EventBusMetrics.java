@@ -0,0 +1,283 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latencies of event bus and its holders, see {@link EventBus#setMetricsEnabled}.
+ * Counters are {@link LongAdder}s and latencies are {@link LatencyHistogram}s, so recording does
+ * not lock. Values may be read at any time or exported to JMX by {@link #export()}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public final class EventBusMetrics implements EventBusMetricsMXBean {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    public static final String DOMAIN = "com.edeqa.eventbus";
+
+    private final String eventBusName;
+    private final LongAdder posted = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder interrupted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+    private final ConcurrentHashMap<String, HolderMetrics> holders = new ConcurrentHashMap<>();
+    private volatile boolean exported;
+
+    EventBusMetrics(String eventBusName) {
+        this.eventBusName = eventBusName;
+    }
+
+    void posted(int count) {
+        posted.add(count);
+    }
+
+    void dispatched(long nanos) {
+        dispatchLatency.record(nanos);
+    }
+
+    void filtered() {
+        filtered.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void interrupted() {
+        interrupted.increment();
+    }
+
+    void failed() {
+        failed.increment();
+    }
+
+    HolderMetrics holder(EntityHolder holder) {
+        String type = holder.getType();
+        HolderMetrics metrics = holders.get(type);
+        if (metrics == null) {
+            metrics = new HolderMetrics(type);
+            HolderMetrics existing = holders.putIfAbsent(type, metrics);
+            if (existing != null) {
+                return existing;
+            }
+            if (exported) {
+                register(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    @Override
+    public String getEventBusName() {
+        return eventBusName;
+    }
+
+    /**
+     * @return number of events passed to the runner, including events of batches
+     */
+    @Override
+    public long getPostedCount() {
+        return posted.sum();
+    }
+
+    /**
+     * @return number of events delivered to holders
+     */
+    @Override
+    public long getDispatchedCount() {
+        return dispatchLatency.getCount();
+    }
+
+    /**
+     * @return number of events suppressed by rate limits of event bus
+     */
+    @Override
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    /**
+     * @return number of posted events that were replaced by newer ones or dropped by the runner
+     */
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return number of events after which some holder has stopped the chain by returning false
+     */
+    @Override
+    public long getInterruptedCount() {
+        return interrupted.sum();
+    }
+
+    /**
+     * @return number of calls of holders that have thrown an exception
+     */
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return number of posted events that are not dispatched or dropped yet
+     */
+    @Override
+    public long getQueueDepth() {
+        return Math.max(0, posted.sum() - dispatchLatency.getCount() - dropped.sum());
+    }
+
+    /**
+     * @return durations of delivering events to all their holders
+     */
+    public LatencyHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    @Override
+    public double getDispatchLatencyMean() {
+        return dispatchLatency.getMean();
+    }
+
+    @Override
+    public long getDispatchLatencyP50() {
+        return dispatchLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getDispatchLatencyP99() {
+        return dispatchLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getDispatchLatencyP999() {
+        return dispatchLatency.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getDispatchLatencyMax() {
+        return dispatchLatency.getMax();
+    }
+
+    /**
+     * @param type type of holder, see {@link EntityHolder#getType()}
+     * @return metrics of holder or null if it has not received events yet
+     */
+    public HolderMetrics getHolder(String type) {
+        return holders.get(type);
+    }
+
+    public Map<String, HolderMetrics> getHolders() {
+        return Collections.unmodifiableMap(holders);
+    }
+
+    @Override
+    public void reset() {
+        posted.reset();
+        filtered.reset();
+        dropped.reset();
+        interrupted.reset();
+        failed.reset();
+        dispatchLatency.reset();
+        for (HolderMetrics metrics : holders.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Registers MBeans of event bus and of its holders in the platform MBean server, as
+     * "com.edeqa.eventbus:type=EventBus,name=&lt;bus&gt;" and
+     * "com.edeqa.eventbus:type=EntityHolder,bus=&lt;bus&gt;,name=&lt;type&gt;". Holders that
+     * receive events later are registered when they appear.
+     */
+    public synchronized void export() throws JMException {
+        if (exported) {
+            return;
+        }
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, getObjectName());
+        exported = true;
+        for (HolderMetrics metrics : holders.values()) {
+            register(metrics);
+        }
+    }
+
+    /**
+     * Removes MBeans registered by {@link #export()}.
+     */
+    public synchronized void unexport() {
+        if (!exported) {
+            return;
+        }
+        exported = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(getObjectName());
+            for (String type : holders.keySet()) {
+                ObjectName name = getObjectName(type);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            }
+        } catch (JMException e) {
+            LOGGER.severe("EventBusMetrics: <" + eventBusName + ">, unexport failed");
+            e.printStackTrace();
+        }
+    }
+
+    public boolean isExported() {
+        return exported;
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        return new ObjectName(DOMAIN + ":type=EventBus,name=" + ObjectName.quote(eventBusName));
+    }
+
+    public ObjectName getObjectName(String type) throws JMException {
+        return new ObjectName(DOMAIN + ":type=EntityHolder,bus=" + ObjectName.quote(eventBusName) + ",name=" + ObjectName.quote(type));
+    }
+
+    private void register(HolderMetrics metrics) {
+        try {
+            ObjectName name = getObjectName(metrics.getType());
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (JMException e) {
+            LOGGER.severe("EventBusMetrics: <" + eventBusName + ">, export failed for holder: " + metrics.getType());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EventBusMetrics{" + eventBusName
+                + ", posted=" + getPostedCount()
+                + ", dispatched=" + getDispatchedCount()
+                + ", filtered=" + getFilteredCount()
+                + ", dropped=" + getDroppedCount()
+                + ", interrupted=" + getInterruptedCount()
+                + ", failed=" + getFailedCount()
+                + ", queueDepth=" + getQueueDepth()
+                + ", dispatchLatency=" + dispatchLatency + "}";
+    }
+}
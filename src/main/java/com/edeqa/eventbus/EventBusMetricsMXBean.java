@@ -0,0 +1,44 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+/**
+ * Attributes of {@link EventBusMetrics} exported to JMX. Durations are in nanoseconds.
+ */
+@SuppressWarnings("unused")
+public interface EventBusMetricsMXBean {
+
+    String getEventBusName();
+
+    long getPostedCount();
+
+    long getDispatchedCount();
+
+    long getFilteredCount();
+
+    long getDroppedCount();
+
+    long getInterruptedCount();
+
+    long getFailedCount();
+
+    long getQueueDepth();
+
+    double getDispatchLatencyMean();
+
+    long getDispatchLatencyP50();
+
+    long getDispatchLatencyP99();
+
+    long getDispatchLatencyP999();
+
+    long getDispatchLatencyMax();
+
+    void reset();
+}
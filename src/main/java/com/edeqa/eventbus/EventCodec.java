@@ -0,0 +1,34 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts event objects to bytes and back, i.e. for {@link EventJournal}. Codec writes directly
+ * into the buffer given, which may be heap, direct or memory-mapped one.
+ *
+ * @param <T> type of event objects
+ */
+@SuppressWarnings("WeakerAccess")
+public interface EventCodec<T> {
+
+    /**
+     * Writes the object starting at the position of buffer and moves the position after it.
+     *
+     * @throws java.nio.BufferOverflowException if the object does not fit into remaining bytes;
+     *                                          the caller may retry with a bigger buffer
+     */
+    void encode(T eventObject, ByteBuffer buffer);
+
+    /**
+     * Reads the object from the position of buffer up to its limit.
+     */
+    T decode(ByteBuffer buffer);
+}
@@ -0,0 +1,607 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+/**
+ * Append-only journal of events, stored in memory-mapped segment files of the directory given.
+ * When journal is set by {@link EventBus#setJournal(EventJournal)}, each posted event is appended
+ * before it is passed to the runner and acknowledged after it was dispatched to holders. After
+ * restart {@link #replay(EventBus)} posts again events that were not acknowledged.
+ * <p>
+ * Record of segment: int length of the rest, long offset, long timestamp, short length of name,
+ * name in UTF-8 and the object encoded by {@link EventCodec}. Length is written last, so the
+ * record that was not written completely ends the segment. File "ack" keeps the offset of the
+ * first event that was not acknowledged.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class EventJournal implements Closeable {
+
+    /**
+     * When appended events are forced to the storage device.
+     */
+    public enum Fsync {
+        /**
+         * Append returns after the event is on the device. Concurrent appends share one force.
+         */
+        EVERY_EVENT,
+        /**
+         * Background thread forces events periodically, so the crash of system may lose events of
+         * the last interval.
+         */
+        INTERVAL,
+        /**
+         * Operating system writes events when it decides; events survive the crash of process
+         * but not of system.
+         */
+        OS
+    }
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String SUFFIX = ".log";
+    private static final int HEADER = 4 + 8 + 8 + 2;
+
+    private final File directory;
+    private final EventCodec<Object> codec;
+    private final int segmentSize;
+    private final Fsync fsync;
+    private final int maxSegments;
+    private final Object lock = new Object();
+    private final Object syncLock = new Object();
+    private final List<Segment> segments = new ArrayList<>();
+    private final TreeSet<Long> pending = new TreeSet<>();
+    private final FileChannel ackChannel;
+    private final MappedByteBuffer ackBuffer;
+    private final long recoveryEnd;
+    private final Thread flusher;
+    private Segment active;
+    private long nextOffset;
+    private long acknowledged;
+    private boolean recovering;
+    private boolean dirty;
+    private long synced = -1;
+    private volatile boolean closed;
+
+    /**
+     * Creates journal with segments of {@value #DEFAULT_SEGMENT_SIZE} bytes, left to the operating
+     * system to write, and keeps all segments.
+     */
+    public EventJournal(File directory, EventCodec<Object> codec) throws IOException {
+        this(directory, codec, DEFAULT_SEGMENT_SIZE, Fsync.OS, 0, 0);
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed.
+     *
+     * @param segmentSize    size of segment file in bytes, the biggest event must fit it
+     * @param fsync          policy of forcing events to the device
+     * @param fsyncInterval  interval in milliseconds for {@link Fsync#INTERVAL}
+     * @param maxSegments    number of segments to keep, 0 keeps all; segments with events that
+     *                       were not acknowledged are always kept
+     */
+    public EventJournal(File directory, EventCodec<Object> codec, int segmentSize, Fsync fsync, final long fsyncInterval, int maxSegments) throws IOException {
+        if (segmentSize <= HEADER) {
+            throw new IllegalArgumentException("EventJournal: segment size is too small: " + segmentSize);
+        }
+        if (fsync == Fsync.INTERVAL && fsyncInterval <= 0) {
+            throw new IllegalArgumentException("EventJournal: fsync interval must be positive.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("EventJournal: cannot create directory " + directory);
+        }
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.maxSegments = maxSegments;
+
+        ackChannel = FileChannel.open(new File(directory, "ack").toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ackBuffer = ackChannel.map(FileChannel.MapMode.READ_WRITE, 0, 8);
+        acknowledged = ackBuffer.getLong(0);
+
+        String[] names = directory.list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SUFFIX);
+            }
+        });
+        if (names != null) {
+            Arrays.sort(names);
+            for (String name : names) {
+                segments.add(new Segment(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), new File(directory, name)));
+            }
+        }
+        if (segments.isEmpty()) {
+            active = createSegment(acknowledged);
+            nextOffset = acknowledged;
+        } else {
+            active = segments.get(segments.size() - 1);
+            active.open(Math.max(segmentSize, (int) active.file.length()));
+            nextOffset = active.base;
+            ByteBuffer buffer = active.buffer;
+            int position = 0;
+            while (position + HEADER <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + 4 + length > buffer.capacity()) {
+                    break;
+                }
+                nextOffset = buffer.getLong(position + 4) + 1;
+                position += 4 + length;
+            }
+            active.end = position;
+        }
+        recoveryEnd = nextOffset;
+        recovering = acknowledged < recoveryEnd;
+        synced = nextOffset - 1;
+
+        if (fsync == Fsync.INTERVAL) {
+            flusher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (!closed) {
+                        try {
+                            Thread.sleep(fsyncInterval);
+                        } catch (InterruptedException e) {
+                            continue;
+                        }
+                        flush();
+                    }
+                }
+            }, "EventBus-journal-" + directory.getName());
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Appends the event.
+     *
+     * @return offset of event
+     * @throws UncheckedIOException     if segment cannot be created
+     * @throws IllegalArgumentException if event does not fit the empty segment
+     */
+    public long append(String eventName, Object eventObject) {
+        byte[] name = eventName.getBytes(UTF_8);
+        if (name.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("EventJournal: event name is too long: " + eventName);
+        }
+        long offset;
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("EventJournal: journal is closed.");
+            }
+            offset = nextOffset;
+            if (!write(active, offset, name, eventObject)) {
+                try {
+                    rotate();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (!write(active, offset, name, eventObject)) {
+                    throw new IllegalArgumentException("EventJournal: event does not fit segment: " + eventName);
+                }
+            }
+            nextOffset++;
+            pending.add(offset);
+            dirty = true;
+        }
+        if (fsync == Fsync.EVERY_EVENT) {
+            sync(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Marks the event as dispatched. The first event that was not acknowledged is kept in the
+     * file "ack"; it is written to the device by {@link Fsync#INTERVAL} or on {@link #close()},
+     * so after crash some events may be replayed twice.
+     */
+    public void acknowledge(long offset) {
+        synchronized (lock) {
+            if (pending.remove(offset)) {
+                advance();
+            }
+        }
+    }
+
+    /**
+     * Posts again events of previous run that were not acknowledged, in order of offsets. Events
+     * go into the runner of event bus but are not appended again. Must be called once after
+     * opening the journal, before that acknowledged offset does not move.
+     *
+     * @return number of events posted
+     */
+    public int replay(final EventBus<?> eventBus) throws IOException {
+        final long from;
+        synchronized (lock) {
+            if (!recovering) {
+                return 0;
+            }
+            from = acknowledged;
+        }
+        final int[] count = new int[1];
+        read(from, new Visitor() {
+            @Override
+            public boolean visit(Record record) {
+                if (record.getOffset() >= recoveryEnd) {
+                    return false;
+                }
+                synchronized (lock) {
+                    pending.add(record.getOffset());
+                }
+                eventBus.redeliver(record.getEventName(), record.getEventObject(), record.getOffset());
+                count[0]++;
+                return true;
+            }
+        });
+        synchronized (lock) {
+            recovering = false;
+            advance();
+        }
+        LOGGER.info("EventJournal: " + directory + " replayed " + count[0] + " events.");
+        return count[0];
+    }
+
+    /**
+     * Receives records of journal.
+     */
+    public interface Visitor {
+        /**
+         * @return false to stop reading
+         */
+        boolean visit(Record record);
+    }
+
+    /**
+     * Reads events starting from the offset given, in order of offsets. Objects are decoded only
+     * when {@link Record#getEventObject()} is called.
+     *
+     * @return offset following the last visited event
+     */
+    public long read(long fromOffset, Visitor visitor) throws IOException {
+        List<ByteBuffer> buffers = map(fromOffset);
+        long next = fromOffset;
+        for (ByteBuffer buffer : buffers) {
+            int position = 0;
+            while (position + HEADER <= buffer.limit()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + 4 + length > buffer.limit()) {
+                    break;
+                }
+                long offset = buffer.getLong(position + 4);
+                if (offset >= fromOffset) {
+                    if (!visitor.visit(new Record(buffer, position, length))) {
+                        return offset;
+                    }
+                    next = offset + 1;
+                }
+                position += 4 + length;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the offset of the first event appended at the time given or later, or the next
+     * offset if there is no such event. Timestamps of events are supposed to grow.
+     *
+     * @param timestamp time in milliseconds since epoch
+     */
+    public long findOffset(final long timestamp) throws IOException {
+        List<ByteBuffer> buffers = map(0);
+        long from = 0;
+        for (int i = buffers.size() - 1; i >= 0; i--) {
+            ByteBuffer buffer = buffers.get(i);
+            if (buffer.limit() >= HEADER && buffer.getInt(0) > 0 && buffer.getLong(12) < timestamp) {
+                from = buffer.getLong(4);
+                break;
+            }
+        }
+        final long[] found = {-1};
+        long next = read(from, new Visitor() {
+            @Override
+            public boolean visit(Record record) {
+                if (record.getTimestamp() >= timestamp) {
+                    found[0] = record.getOffset();
+                    return false;
+                }
+                return true;
+            }
+        });
+        return found[0] >= 0 ? found[0] : next;
+    }
+
+    /**
+     * Maps segments that may contain events starting from the offset given. Active segment is
+     * limited by the end of its last event.
+     */
+    private List<ByteBuffer> map(long fromOffset) throws IOException {
+        List<Segment> snapshot;
+        Segment current;
+        ByteBuffer activeBuffer;
+        synchronized (lock) {
+            snapshot = new ArrayList<>(segments);
+            current = active;
+            activeBuffer = active.buffer.duplicate();
+            activeBuffer.limit(active.end);
+        }
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Segment segment = snapshot.get(i);
+            if (i + 1 < snapshot.size() && snapshot.get(i + 1).base <= fromOffset) {
+                continue;
+            }
+            if (segment == current) {
+                buffers.add(activeBuffer);
+            } else if (segment.file.exists()) {
+                try (FileChannel channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.READ)) {
+                    buffers.add(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            }
+        }
+        return buffers;
+    }
+
+    /**
+     * Returns the offset of the first event that was not acknowledged.
+     */
+    public long getAcknowledgedOffset() {
+        synchronized (lock) {
+            return acknowledged;
+        }
+    }
+
+    /**
+     * Returns the offset of the next appended event.
+     */
+    public long getNextOffset() {
+        synchronized (lock) {
+            return nextOffset;
+        }
+    }
+
+    public int getSegmentCount() {
+        synchronized (lock) {
+            return segments.size();
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public EventCodec<Object> getCodec() {
+        return codec;
+    }
+
+    /**
+     * Forces appended events and acknowledged offset to the device.
+     */
+    public void flush() {
+        MappedByteBuffer buffer;
+        synchronized (lock) {
+            if (!dirty || closed) {
+                return;
+            }
+            dirty = false;
+            buffer = active.buffer;
+        }
+        buffer.force();
+        ackBuffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            active.buffer.force();
+            ackBuffer.force();
+            active.close();
+            ackChannel.close();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    private boolean write(Segment segment, long offset, byte[] name, Object eventObject) {
+        ByteBuffer buffer = segment.buffer;
+        int start = segment.end;
+        if (start + HEADER + name.length > buffer.capacity()) {
+            return false;
+        }
+        buffer.limit(buffer.capacity());
+        buffer.position(start + 4);
+        buffer.putLong(offset);
+        buffer.putLong(System.currentTimeMillis());
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        try {
+            codec.encode(eventObject, buffer);
+        } catch (BufferOverflowException e) {
+            return false;
+        }
+        buffer.putInt(start, buffer.position() - start - 4);
+        segment.end = buffer.position();
+        return true;
+    }
+
+    /**
+     * Forces events up to the offset given. Threads that wait here are covered by one force.
+     */
+    private void sync(long offset) {
+        synchronized (syncLock) {
+            if (synced >= offset) {
+                return;
+            }
+            MappedByteBuffer buffer;
+            long target;
+            synchronized (lock) {
+                buffer = active.buffer;
+                target = nextOffset - 1;
+            }
+            buffer.force();
+            synced = target;
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (fsync != Fsync.OS) {
+            active.buffer.force();
+        }
+        active.close();
+        active.buffer = null;
+        active = createSegment(nextOffset);
+        if (maxSegments > 0) {
+            while (segments.size() > maxSegments && segments.get(1).base <= acknowledged) {
+                Segment oldest = segments.remove(0);
+                if (!oldest.file.delete()) {
+                    LOGGER.warning("EventJournal: cannot delete segment " + oldest.file);
+                }
+            }
+        }
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Segment segment = new Segment(base, new File(directory, String.format("%020d", base) + SUFFIX));
+        segment.open(segmentSize);
+        segments.add(segment);
+        return segment;
+    }
+
+    private void advance() {
+        if (recovering) {
+            return;
+        }
+        long next = pending.isEmpty() ? nextOffset : pending.first();
+        if (next > acknowledged) {
+            acknowledged = next;
+            ackBuffer.putLong(0, next);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Event read from journal.
+     */
+    public final class Record {
+        private final ByteBuffer buffer;
+        private final int position;
+        private final int length;
+        private String eventName;
+        private Object eventObject;
+        private boolean decoded;
+
+        private Record(ByteBuffer buffer, int position, int length) {
+            this.buffer = buffer;
+            this.position = position;
+            this.length = length;
+        }
+
+        public long getOffset() {
+            return buffer.getLong(position + 4);
+        }
+
+        /**
+         * Returns the time of appending, in milliseconds since epoch.
+         */
+        public long getTimestamp() {
+            return buffer.getLong(position + 12);
+        }
+
+        public String getEventName() {
+            if (eventName == null) {
+                byte[] name = new byte[buffer.getShort(position + 20)];
+                ByteBuffer slice = buffer.duplicate();
+                slice.position(position + HEADER);
+                slice.get(name);
+                eventName = new String(name, UTF_8);
+            }
+            return eventName;
+        }
+
+        /**
+         * Returns the object, decoding it on the first call.
+         */
+        public Object getEventObject() {
+            if (!decoded) {
+                eventObject = codec.decode(getPayload());
+                decoded = true;
+            }
+            return eventObject;
+        }
+
+        /**
+         * Returns the encoded object without copying, valid until the journal is closed.
+         */
+        public ByteBuffer getPayload() {
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(position + 4 + length);
+            slice.position(position + HEADER + buffer.getShort(position + 20));
+            return slice.slice();
+        }
+
+        @Override
+        public String toString() {
+            return "Record{" +
+                    "offset=" + getOffset() +
+                    ", eventName=" + getEventName() +
+                    '}';
+        }
+    }
+
+    private static final class Segment {
+        private final long base;
+        private final File file;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private int end;
+
+        Segment(long base, File file) {
+            this.base = base;
+            this.file = file;
+        }
+
+        void open(int size) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+}
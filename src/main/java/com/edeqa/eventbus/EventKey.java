@@ -0,0 +1,111 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Typed event channel. Each event name gets the dense integer id, so event bus finds holders of
+ * event by array index instead of comparing names. Keep keys in constants and post with
+ * {@link EventBus#post(EventKey, Object)}:
+ * <pre>
+ *     public static final EventKey&lt;Location&gt; LOCATION = EventKey.of("location", Location.class);
+ *     ...
+ *     eventBus.post(LOCATION, location);
+ * </pre>
+ * Keys with the same name are equal regardless of type. Holders still declare events by name in
+ * {@link EntityHolder#events()} and receive them by name in {@link EntityHolder#onEvent(String, Object)}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class EventKey<T> {
+
+    private static final ConcurrentMap<String, EventKey<Object>> keys = new ConcurrentHashMap<>();
+
+    private final int id;
+    private final String name;
+    private final Class<T> type;
+
+    private EventKey(int id, String name, Class<T> type) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Returns the key of event with name.
+     *
+     * @param eventName any not empty event name, i.e. "event1"
+     */
+    public static EventKey<Object> of(String eventName) {
+        if (eventName == null) {
+            throw new IllegalArgumentException("EventKey: event name is not defined.");
+        }
+        EventKey<Object> key = keys.get(eventName);
+        if (key == null) {
+            synchronized (keys) {
+                key = keys.get(eventName);
+                if (key == null) {
+                    key = new EventKey<>(keys.size(), eventName, Object.class);
+                    keys.put(eventName, key);
+                }
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Returns the typed key of event with name.
+     *
+     * @param eventName any not empty event name, i.e. "event1"
+     * @param type      class of event objects
+     */
+    public static <T> EventKey<T> of(String eventName, Class<T> type) {
+        EventKey<Object> key = of(eventName);
+        return new EventKey<>(key.id, key.name, type);
+    }
+
+    /**
+     * Returns the key of event with name if it was created before, otherwise null.
+     */
+    static EventKey<Object> find(String eventName) {
+        return eventName == null ? null : keys.get(eventName);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof EventKey && id == ((EventKey<?>) o).id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "EventKey{" +
+                "id=" + id +
+                ", name=" + name +
+                ", type=" + type.getSimpleName() +
+                '}';
+    }
+}
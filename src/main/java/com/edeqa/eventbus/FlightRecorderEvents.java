@@ -0,0 +1,266 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Java Flight Recorder events of event buses:
+ * <ul>
+ * <li>{@value #POST} - call of post in the producer thread, with its stack trace;</li>
+ * <li>{@value #ENQUEUE} - event is passed to the runner;</li>
+ * <li>{@value #DISPATCH} - delivering of event to all its holders, from the start of dispatch
+ * to completion;</li>
+ * <li>{@value #HANDLE} - call of one holder.</li>
+ * </ul>
+ * Events of the same post have the same bus, event name and identity hash of the object, so the
+ * stack of producer may be matched with latencies of consumers.
+ * <p>
+ * Event types are defined by {@code jdk.jfr.EventFactory} through reflection, so the library
+ * still runs on JVMs without JFR. Events are disabled by default and cost one volatile read per
+ * post and per holder then; enable them by {@link #setEnabled(boolean)} or by system property
+ * {@value #PROPERTY}=true. Enabled events are created only while some recording is running and
+ * has them enabled.
+ * <pre>
+ *     java -Dcom.edeqa.eventbus.jfr=true -XX:StartFlightRecording=filename=bus.jfr ...
+ * </pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public final class FlightRecorderEvents {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    public static final String PROPERTY = "com.edeqa.eventbus.jfr";
+    public static final String POST = "com.edeqa.eventbus.Post";
+    public static final String ENQUEUE = "com.edeqa.eventbus.Enqueue";
+    public static final String DISPATCH = "com.edeqa.eventbus.Dispatch";
+    public static final String HANDLE = "com.edeqa.eventbus.Handle";
+
+    private static volatile FlightRecorderEvents recorder;
+    private static FlightRecorderEvents defined;
+    private static boolean unsupported;
+
+    final Type post;
+    final Type enqueue;
+    final Type dispatch;
+    final Type handle;
+
+    static {
+        if (Boolean.getBoolean(PROPERTY)) {
+            setEnabled(true);
+        }
+    }
+
+    private FlightRecorderEvents() throws Throwable {
+        post = new Type(POST, "Post", "Event is posted into the bus", true,
+                String.class, "eventBus", "Event Bus",
+                String.class, "eventName", "Event Name",
+                int.class, "objectId", "Object Id",
+                boolean.class, "admitted", "Admitted");
+        enqueue = new Type(ENQUEUE, "Enqueue", "Event is passed to the runner of bus", false,
+                String.class, "eventBus", "Event Bus",
+                String.class, "eventName", "Event Name",
+                int.class, "objectId", "Object Id",
+                String.class, "runner", "Runner");
+        dispatch = new Type(DISPATCH, "Dispatch", "Event is delivered to its holders", false,
+                String.class, "eventBus", "Event Bus",
+                String.class, "eventName", "Event Name",
+                int.class, "objectId", "Object Id",
+                int.class, "holders", "Holders");
+        handle = new Type(HANDLE, "Handle", "Holder handles the event", false,
+                String.class, "eventBus", "Event Bus",
+                String.class, "eventName", "Event Name",
+                int.class, "objectId", "Object Id",
+                String.class, "holder", "Holder",
+                String.class, "result", "Result");
+    }
+
+    /**
+     * Switches flight recorder events of all buses.
+     *
+     * @return false if JFR is not supported by JVM
+     */
+    public static synchronized boolean setEnabled(boolean enabled) {
+        if (!enabled) {
+            recorder = null;
+            return true;
+        }
+        if (defined == null && !unsupported) {
+            try {
+                defined = new FlightRecorderEvents();
+            } catch (Throwable e) {
+                unsupported = true;
+                LOGGER.config("FlightRecorderEvents: JFR is not supported: " + e);
+            }
+        }
+        recorder = defined;
+        return defined != null;
+    }
+
+    public static boolean isEnabled() {
+        return recorder != null;
+    }
+
+    /**
+     * @return true if JVM provides {@code jdk.jfr.EventFactory}
+     */
+    public static boolean isSupported() {
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+            return true;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return events or null if they are disabled
+     */
+    static FlightRecorderEvents recorder() {
+        return recorder;
+    }
+
+    /**
+     * Starts the event of type if it is recorded now.
+     *
+     * @return started event or null
+     */
+    Object begin(Type type) {
+        try {
+            if (!(boolean) type.isEnabled.invokeExact()) {
+                return null;
+            }
+            Object event = (Object) type.newEvent.invokeExact();
+            Type.BEGIN.invokeExact(event);
+            return event;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets values of fields in order of their definition and commits the event if it has passed
+     * the threshold.
+     */
+    void commit(Type type, Object event, Object... values) {
+        try {
+            Type.END.invokeExact(event);
+            if (!(boolean) Type.SHOULD_COMMIT.invokeExact(event)) {
+                return;
+            }
+            for (int i = 0; i < values.length; i++) {
+                Type.SET.invokeExact(event, i, values[i]);
+            }
+            Type.COMMIT.invokeExact(event);
+        } catch (Throwable e) {
+            LOGGER.severe("FlightRecorderEvents: commit failed for: " + type.name);
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Commits the event of type without duration.
+     */
+    void instant(Type type, Object... values) {
+        Object event = begin(type);
+        if (event != null) {
+            commit(type, event, values);
+        }
+    }
+
+    static int id(Object eventObject) {
+        return System.identityHashCode(eventObject);
+    }
+
+    /**
+     * Type of event defined by {@code jdk.jfr.EventFactory}.
+     */
+    static final class Type {
+        private static final MethodHandle BEGIN;
+        private static final MethodHandle END;
+        private static final MethodHandle SHOULD_COMMIT;
+        private static final MethodHandle SET;
+        private static final MethodHandle COMMIT;
+
+        static {
+            MethodHandle begin = null, end = null, shouldCommit = null, set = null, commit = null;
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                begin = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class)).asType(MethodType.methodType(void.class, Object.class));
+                end = lookup.findVirtual(eventClass, "end", MethodType.methodType(void.class)).asType(MethodType.methodType(void.class, Object.class));
+                shouldCommit = lookup.findVirtual(eventClass, "shouldCommit", MethodType.methodType(boolean.class)).asType(MethodType.methodType(boolean.class, Object.class));
+                set = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class)).asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+                commit = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class)).asType(MethodType.methodType(void.class, Object.class));
+            } catch (Throwable e) {
+                LOGGER.config("FlightRecorderEvents: jdk.jfr.Event is not available: " + e);
+            }
+            BEGIN = begin;
+            END = end;
+            SHOULD_COMMIT = shouldCommit;
+            SET = set;
+            COMMIT = commit;
+        }
+
+        private final String name;
+        private final MethodHandle newEvent;
+        private final MethodHandle isEnabled;
+
+        /**
+         * @param fields triples of type, name and label of each field
+         */
+        Type(String name, String label, String description, boolean stackTrace, Object... fields) throws Throwable {
+            if (BEGIN == null) {
+                throw new UnsupportedOperationException("jdk.jfr.Event is not available");
+            }
+            this.name = name;
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+            Constructor<?> annotation = annotationElementClass.getConstructor(Class.class, Object.class);
+            Constructor<?> descriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+            List<Object> annotations = new ArrayList<>();
+            annotations.add(annotation.newInstance(annotationClass("jdk.jfr.Name"), name));
+            annotations.add(annotation.newInstance(annotationClass("jdk.jfr.Label"), label));
+            annotations.add(annotation.newInstance(annotationClass("jdk.jfr.Description"), description));
+            annotations.add(annotation.newInstance(annotationClass("jdk.jfr.Category"), new String[]{"EventBus"}));
+            annotations.add(annotation.newInstance(annotationClass("jdk.jfr.StackTrace"), stackTrace));
+
+            List<Object> descriptors = new ArrayList<>();
+            for (int i = 0; i < fields.length; i += 3) {
+                Object fieldLabel = annotation.newInstance(annotationClass("jdk.jfr.Label"), fields[i + 2]);
+                descriptors.add(descriptor.newInstance(fields[i], fields[i + 1], Arrays.asList(fieldLabel)));
+            }
+
+            Object factory = factoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, descriptors);
+            Object eventType = factoryClass.getMethod("getEventType").invoke(factory);
+
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            newEvent = lookup.findVirtual(factoryClass, "newEvent", MethodType.methodType(Class.forName("jdk.jfr.Event")))
+                    .bindTo(factory).asType(MethodType.methodType(Object.class));
+            isEnabled = lookup.findVirtual(eventTypeClass, "isEnabled", MethodType.methodType(boolean.class))
+                    .bindTo(eventType);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Class<? extends Annotation> annotationClass(String name) throws ClassNotFoundException {
+            return (Class<? extends Annotation>) Class.forName(name);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Timer for many short timeouts served by one thread. Timeouts are put into the wheel of buckets by
+ * their deadline, each tick the thread expires one bucket, so scheduling and cancelling cost O(1)
+ * while precision is limited by the tick duration.
+ * <p>
+ * Tasks are performed in the timer thread, so they must be short. Tasks of the shared timer that
+ * post into buses hand the post to {@link #getSharedLane()}, so runner of bus never runs in the
+ * timer thread.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class HashedWheelTimer {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static volatile HashedWheelTimer shared;
+    private static volatile SerialRunner sharedLane;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean stopped;
+    private volatile long startTime;
+    private long tick;
+
+    /**
+     * Creates timer with tick of 10 ms and the wheel of 512 buckets.
+     */
+    public HashedWheelTimer() {
+        this(10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * @param tickDuration  precision of timer
+     * @param unit          unit of tickDuration
+     * @param ticksPerWheel number of buckets, rounded up to the power of 2
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("HashedWheelTimer: tickDuration and ticksPerWheel must be positive.");
+        }
+        tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                work();
+            }
+        }, "EventBus-timer-" + COUNTER.incrementAndGet());
+        worker.setDaemon(true);
+    }
+
+    /**
+     * Returns the timer shared by all event buses.
+     */
+    public static HashedWheelTimer getShared() {
+        if (shared == null) {
+            synchronized (HashedWheelTimer.class) {
+                if (shared == null) {
+                    shared = new HashedWheelTimer();
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the lane where tasks of the shared timer post events into buses. Direct or blocking
+     * runner of bus does not stop the timer then, and posts keep the order of their deadlines.
+     */
+    static EventBus.Runner getSharedLane() {
+        if (sharedLane == null) {
+            synchronized (HashedWheelTimer.class) {
+                if (sharedLane == null) {
+                    sharedLane = new SerialRunner();
+                }
+            }
+        }
+        return sharedLane;
+    }
+
+    /**
+     * Schedules the task to be performed once after the delay.
+     *
+     * @return handle that cancels the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("HashedWheelTimer: timer is stopped.");
+        }
+        start();
+        Timeout timeout = new Timeout(task, System.nanoTime() + Math.max(0, unit.toNanos(delay)) - startTime);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the timer thread, scheduled tasks will not be performed.
+     */
+    public void stop() {
+        if (this == shared) {
+            throw new IllegalStateException("HashedWheelTimer: shared timer cannot be stopped.");
+        }
+        stopped = true;
+        worker.interrupt();
+    }
+
+    /**
+     * Returns the number of scheduled tasks that are not performed or cancelled yet.
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    private void start() {
+        if (startTime == 0) {
+            synchronized (this) {
+                if (startTime == 0) {
+                    startTime = System.nanoTime();
+                    worker.start();
+                }
+            }
+        }
+    }
+
+    private void work() {
+        while (!stopped) {
+            long now = waitForNextTick();
+            if (now < 0) {
+                continue;
+            }
+            removeCancelled();
+            transferAdded();
+            wheel[(int) (tick & mask)].expire(now);
+            tick++;
+        }
+    }
+
+    /**
+     * @return time of tick since start or -1 if interrupted
+     */
+    private long waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startTime;
+            long sleep = (deadline - now + 999999) / 1000000;
+            if (sleep <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < 100000; i++) {
+            Timeout timeout = added.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != Timeout.WAITING) {
+                continue;
+            }
+            long ticks = timeout.deadline / tickNanos;
+            timeout.rounds = (ticks - tick) / wheel.length;
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Handle of scheduled task.
+     */
+    public final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long rounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return true if task was cancelled by this call, false if it is already performed or
+         * cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(WAITING, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOGGER.severe("HashedWheelTimer: task failed: " + task);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of timeouts, accessed by the timer thread only.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long now) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.rounds <= 0 && timeout.deadline <= now) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency of one holder of event bus, see {@link EventBusMetrics#getHolder(String)}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public final class HolderMetrics implements HolderMetricsMXBean {
+
+    private final String type;
+    private final LongAdder handled = new LongAdder();
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder interrupted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    HolderMetrics(String type) {
+        this.type = type;
+    }
+
+    /**
+     * @param proceed false if holder has interrupted the chain of holders
+     */
+    void handled(long nanos, boolean proceed) {
+        handled.increment();
+        if (!proceed) {
+            interrupted.increment();
+        }
+        latency.record(nanos);
+    }
+
+    /**
+     * Counts events of batch handled by {@link BatchEntityHolder} in one call.
+     */
+    void handled(long nanos, int count) {
+        handled.add(count);
+        latency.record(nanos);
+    }
+
+    void filtered() {
+        filtered.increment();
+    }
+
+    void failed(long nanos) {
+        failed.increment();
+        latency.record(nanos);
+    }
+
+    @Override
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return number of calls of {@link EntityHolder#onEvent(String, Object)}, including failed
+     * ones, and events handled by {@link BatchEntityHolder#onEvents(java.util.List)}
+     */
+    @Override
+    public long getHandledCount() {
+        return handled.sum() + failed.sum();
+    }
+
+    /**
+     * @return number of events not passed to holder because of its rate limits
+     */
+    @Override
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    /**
+     * @return number of events after which holder has stopped the chain by returning false
+     */
+    @Override
+    public long getInterruptedCount() {
+        return interrupted.sum();
+    }
+
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * @return durations of {@link EntityHolder#onEvent(String, Object)}
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getLatencyP50() {
+        return latency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getLatencyP99() {
+        return latency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLatencyP999() {
+        return latency.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getLatencyMax() {
+        return latency.getMax();
+    }
+
+    @Override
+    public void reset() {
+        handled.reset();
+        filtered.reset();
+        interrupted.reset();
+        failed.reset();
+        latency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "HolderMetrics{" + type
+                + ", handled=" + getHandledCount()
+                + ", filtered=" + getFilteredCount()
+                + ", interrupted=" + getInterruptedCount()
+                + ", failed=" + getFailedCount()
+                + ", latency=" + latency + "}";
+    }
+}
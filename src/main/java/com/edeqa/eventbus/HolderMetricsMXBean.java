@@ -0,0 +1,38 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+/**
+ * Attributes of {@link HolderMetrics} exported to JMX. Durations are in nanoseconds.
+ */
+@SuppressWarnings("unused")
+public interface HolderMetricsMXBean {
+
+    String getType();
+
+    long getHandledCount();
+
+    long getFilteredCount();
+
+    long getInterruptedCount();
+
+    long getFailedCount();
+
+    double getLatencyMean();
+
+    long getLatencyP50();
+
+    long getLatencyP99();
+
+    long getLatencyP999();
+
+    long getLatencyMax();
+
+    void reset();
+}
@@ -0,0 +1,321 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.logging.Logger;
+
+/**
+ * Watches holders of event buses that run longer than the latency budget. Each thread delivering
+ * events marks the holder it calls and the time of start; the watchdog thread checks these marks
+ * several times per budget. The call that exceeds the budget is reported once: the stack of
+ * delivering thread is captured, logged and passed to {@link Listener}. If quarantine is enabled
+ * then the bus delivers next events of the slow holder in its own lane, see
+ * {@link EventBus#quarantine(String)}, so other holders of bus are not delayed by it.
+ * <pre>
+ *     HolderWatchdog watchdog = new HolderWatchdog(100, TimeUnit.MILLISECONDS).setQuarantine(true);
+ *     eventBus.setWatchdog(watchdog);
+ *     ...
+ *     watchdog.close();
+ * </pre>
+ * One watchdog may be set to many buses.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class HolderWatchdog implements Closeable {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    private static final long MIN_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long budget;
+    private final long period;
+    private final CopyOnWriteArrayList<Slot> slots = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Slot> slot = new ThreadLocal<Slot>() {
+        @Override
+        protected Slot initialValue() {
+            Slot slot = new Slot(Thread.currentThread());
+            slots.add(slot);
+            return slot;
+        }
+    };
+    private final Map<String, SlowCall> slowHolders = new ConcurrentHashMap<>();
+    private final AtomicLong slowCount = new AtomicLong();
+    private final Thread thread;
+    private volatile Listener listener;
+    private volatile boolean quarantine;
+    private volatile boolean running = true;
+
+    /**
+     * Listener of slow calls. It is called in the thread of watchdog while the slow holder is
+     * still running, so it should return quickly.
+     */
+    public interface Listener {
+        void onSlowHolder(SlowCall call);
+    }
+
+    /**
+     * @param budget longest allowed duration of {@link EntityHolder#onEvent(String, Object)}
+     */
+    public HolderWatchdog(long budget, TimeUnit unit) {
+        if (budget <= 0) {
+            throw new IllegalArgumentException("Budget should be positive: " + budget);
+        }
+        this.budget = unit.toNanos(budget);
+        this.period = Math.min(MAX_PERIOD_NANOS, Math.max(MIN_PERIOD_NANOS, this.budget / 4));
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "EventBus-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * If enabled then the slow holder is quarantined in the bus when it is detected.
+     */
+    public HolderWatchdog setQuarantine(boolean quarantine) {
+        this.quarantine = quarantine;
+        return this;
+    }
+
+    public boolean isQuarantine() {
+        return quarantine;
+    }
+
+    public HolderWatchdog setListener(Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public long getBudget(TimeUnit unit) {
+        return unit.convert(budget, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return number of calls that have exceeded the budget
+     */
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    /**
+     * @return last slow call of each holder, by type of holder
+     */
+    public Map<String, SlowCall> getSlowHolders() {
+        return Collections.unmodifiableMap(slowHolders);
+    }
+
+    /**
+     * Stops the watchdog thread. Buses keep marking their calls until watchdog is removed by
+     * {@link EventBus#setWatchdog(HolderWatchdog)}.
+     */
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * @return the mark of current thread
+     */
+    Slot slot() {
+        return slot.get();
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(period);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            long now = System.nanoTime();
+            for (Slot slot : slots) {
+                if (!slot.thread.isAlive()) {
+                    slots.remove(slot);
+                    continue;
+                }
+                try {
+                    check(slot, now);
+                } catch (Exception e) {
+                    LOGGER.severe("HolderWatchdog: check failed for thread: " + slot.thread.getName());
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void check(Slot slot, long now) {
+        long start = slot.start;
+        if (start == 0 || start == slot.reported || now - start < budget) {
+            return;
+        }
+        EventBus<?> eventBus = slot.eventBus;
+        EntityHolder holder = slot.holder;
+        String eventName = slot.eventName;
+        StackTraceElement[] stack = slot.thread.getStackTrace();
+        if (slot.start != start || eventBus == null || holder == null) {
+            // the call has finished meanwhile
+            return;
+        }
+        slot.reported = start;
+        slowCount.incrementAndGet();
+
+        SlowCall call = new SlowCall(eventBus.getEventBusName(), holder.getType(), eventName, slot.thread.getName(), now - start, stack);
+        slowHolders.put(call.getHolderType(), call);
+        StringBuilder message = new StringBuilder();
+        message.append("HolderWatchdog: ").append(call);
+        for (StackTraceElement element : stack) {
+            message.append("\n\tat ").append(element);
+        }
+        LOGGER.warning(message.toString());
+
+        if (quarantine) {
+            // next events of holder must not start in the lane while the slow call is running
+            eventBus.quarantine(call.getHolderType(), slot.handOff(start, period));
+        }
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onSlowHolder(call);
+        }
+    }
+
+    /**
+     * Mark of the thread that delivers events. Start is written last and cleared when the call
+     * finishes, so watchdog sees either the whole mark or none. Start is written by lazySet that
+     * does not wait for the store buffer, the watchdog may see it a bit later; for the same reason
+     * the hand-off task also checks the start periodically instead of relying on the latch only.
+     */
+    static final class Slot {
+        private static final AtomicLongFieldUpdater<Slot> START = AtomicLongFieldUpdater.newUpdater(Slot.class, "start");
+
+        private final Thread thread;
+        private EventBus<?> eventBus;
+        private EntityHolder holder;
+        private String eventName;
+        private volatile long start;
+        private volatile CountDownLatch handOff;
+        private long reported;
+
+        private Slot(Thread thread) {
+            this.thread = thread;
+        }
+
+        void begin(EventBus<?> eventBus, EntityHolder holder, String eventName, long start) {
+            this.eventBus = eventBus;
+            this.holder = holder;
+            this.eventName = eventName;
+            START.lazySet(this, start == 0 ? 1 : start);
+        }
+
+        void end() {
+            START.lazySet(this, 0);
+            CountDownLatch handOff = this.handOff;
+            if (handOff != null) {
+                this.handOff = null;
+                handOff.countDown();
+            }
+        }
+
+        /**
+         * @param start start of the call in progress
+         * @return task that waits until the call ends
+         */
+        private Runnable handOff(final long start, final long period) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            handOff = latch;
+            return new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (Slot.this.start == start && !latch.await(period, TimeUnit.NANOSECONDS)) {
+                            // the call is still running
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "HolderWatchdog: hand-off of " + thread.getName();
+                }
+            };
+        }
+    }
+
+    /**
+     * The call of holder that has exceeded the budget.
+     */
+    public static final class SlowCall {
+        private final String eventBusName;
+        private final String holderType;
+        private final String eventName;
+        private final String threadName;
+        private final long duration;
+        private final StackTraceElement[] stackTrace;
+
+        SlowCall(String eventBusName, String holderType, String eventName, String threadName, long duration, StackTraceElement[] stackTrace) {
+            this.eventBusName = eventBusName;
+            this.holderType = holderType;
+            this.eventName = eventName;
+            this.threadName = threadName;
+            this.duration = duration;
+            this.stackTrace = stackTrace;
+        }
+
+        public String getEventBusName() {
+            return eventBusName;
+        }
+
+        public String getHolderType() {
+            return holderType;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        /**
+         * @return duration of call in nanoseconds at the moment it was detected
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return stack of delivering thread at the moment the call was detected
+         */
+        public StackTraceElement[] getStackTrace() {
+            return Arrays.copyOf(stackTrace, stackTrace.length);
+        }
+
+        @Override
+        public String toString() {
+            return "SlowCall{eventBus: <" + eventBusName + ">, holder: " + holderType + ", eventName: " + eventName
+                    + ", thread: " + threadName + ", duration: " + TimeUnit.NANOSECONDS.toMillis(duration) + " ms}";
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Posts the range of events from {@link EventJournal} into event bus, i.e. into the fresh one to
+ * rebuild the state of holders or to debug. Segments are read through memory mapping and objects
+ * are decoded only when posted. By default events are posted as fast as possible; the rate may be
+ * limited by {@link #setRate(double)} or events may be posted with their original pauses by
+ * {@link #setSpeed(double)}.
+ * <pre>
+ *     long count = new JournalReplay(journal).setFromTime(yesterday).setSpeed(10).replay(eventBus);
+ * </pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class JournalReplay {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    private final EventJournal journal;
+    private long fromOffset;
+    private long fromTime = -1;
+    private long toOffset = Long.MAX_VALUE;
+    private long toTime = Long.MAX_VALUE;
+    private double rate;
+    private double speed;
+
+    public JournalReplay(EventJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * @param offset offset of the first event to post
+     */
+    public JournalReplay setFrom(long offset) {
+        fromOffset = offset;
+        fromTime = -1;
+        return this;
+    }
+
+    /**
+     * @param timestamp time in milliseconds since epoch; the first event appended at this time or
+     *                  later is posted first
+     */
+    public JournalReplay setFromTime(long timestamp) {
+        fromTime = timestamp;
+        return this;
+    }
+
+    /**
+     * @param offset offset following the last event to post
+     */
+    public JournalReplay setTo(long offset) {
+        toOffset = offset;
+        return this;
+    }
+
+    /**
+     * @param timestamp time in milliseconds since epoch; events appended at this time or later
+     *                  are not posted
+     */
+    public JournalReplay setToTime(long timestamp) {
+        toTime = timestamp;
+        return this;
+    }
+
+    /**
+     * Limits the rate of posting.
+     *
+     * @param eventsPerSecond maximal rate, 0 for maximal speed
+     */
+    public JournalReplay setRate(double eventsPerSecond) {
+        rate = eventsPerSecond;
+        speed = 0;
+        return this;
+    }
+
+    /**
+     * Keeps pauses between events as they were appended.
+     *
+     * @param speed 1 for original pace, 2 for twice faster and so on; 0 for maximal speed
+     */
+    public JournalReplay setSpeed(double speed) {
+        this.speed = speed;
+        rate = 0;
+        return this;
+    }
+
+    /**
+     * Posts events in the current thread, into the runner of event bus.
+     *
+     * @return number of events posted
+     */
+    public long replay(final EventBus<?> eventBus) throws IOException {
+        long from = fromTime >= 0 ? journal.findOffset(fromTime) : fromOffset;
+        final long[] count = new long[1];
+        final long start = System.nanoTime();
+        final long[] firstTimestamp = {-1};
+        journal.read(from, new EventJournal.Visitor() {
+            @Override
+            public boolean visit(EventJournal.Record record) {
+                if (record.getOffset() >= toOffset) {
+                    return false;
+                }
+                long timestamp = record.getTimestamp();
+                if (timestamp >= toTime) {
+                    return false;
+                }
+                long due = 0;
+                if (rate > 0) {
+                    due = start + (long) (count[0] * 1e9 / rate);
+                } else if (speed > 0) {
+                    if (firstTimestamp[0] < 0) {
+                        firstTimestamp[0] = timestamp;
+                    }
+                    due = start + (long) ((timestamp - firstTimestamp[0]) * 1e6 / speed);
+                }
+                if (due != 0) {
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                eventBus.post(record.getEventName(), record.getEventObject());
+                count[0]++;
+                return true;
+            }
+        });
+        LOGGER.fine("JournalReplay: " + count[0] + " events posted into <" + eventBus.getEventBusName() + "> from " + journal.getDirectory());
+        return count[0];
+    }
+}
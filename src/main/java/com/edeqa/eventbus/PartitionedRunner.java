@@ -0,0 +1,119 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runner that spreads runnables over the number of {@link SerialRunner} lanes by key. Runnables
+ * with the same key are performed in order of posting, runnables with different keys may be
+ * performed in parallel. Runnables posted without key use the first lane. {@link EntityHolder#start()}
+ * and {@link EntityHolder#finish()} are posted by {@link #postAll(Runnable)} into all lanes, so
+ * holder receives no events of any key before its start or after its finish.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class PartitionedRunner implements EventBus.Runner.Keyed {
+
+    private final SerialRunner[] lanes;
+
+    /**
+     * Creates lanes, one per processor, over the shared executor of {@link SerialRunner}.
+     */
+    public PartitionedRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public PartitionedRunner(int partitions) {
+        this(partitions, SerialRunner.getSharedExecutor());
+    }
+
+    public PartitionedRunner(int partitions, Executor executor) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("PartitionedRunner: number of partitions must be positive: " + partitions);
+        }
+        lanes = new SerialRunner[partitions];
+        for (int i = 0; i < partitions; i++) {
+            lanes[i] = new SerialRunner(executor);
+        }
+    }
+
+    /**
+     * Returns factory that creates separate set of lanes for each event bus.
+     */
+    public static EventBus.Runner.Factory factory(final int partitions) {
+        return new EventBus.Runner.Factory() {
+            @Override
+            public EventBus.Runner create(String eventBusName) {
+                return new PartitionedRunner(partitions);
+            }
+        };
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        lanes[0].post(runnable);
+    }
+
+    @Override
+    public void post(Object key, Runnable runnable) {
+        lanes[partition(key)].post(runnable);
+    }
+
+    /**
+     * Each lane pauses when it reaches the runnable, the last lane performs it and resumes others.
+     * Paused lanes do not hold threads of executor.
+     */
+    @Override
+    public void postAll(final Runnable runnable) {
+        if (lanes.length == 1) {
+            lanes[0].post(runnable);
+            return;
+        }
+        final AtomicInteger remaining = new AtomicInteger(lanes.length);
+        for (final SerialRunner lane : lanes) {
+            lane.post(new Runnable() {
+                @Override
+                public void run() {
+                    // pause before counting, so the last lane can not resume this one too early
+                    lane.pause();
+                    if (remaining.decrementAndGet() > 0) {
+                        return;
+                    }
+                    try {
+                        runnable.run();
+                    } finally {
+                        for (SerialRunner other : lanes) {
+                            other.resume();
+                        }
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return runnable.toString();
+                }
+            });
+        }
+    }
+
+    public int getPartitions() {
+        return lanes.length;
+    }
+
+    /**
+     * Returns the number of lane for the key.
+     */
+    public int partition(Object key) {
+        if (key == null) return 0;
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & 0x7fffffff) % lanes.length;
+    }
+}
@@ -8,16 +8,24 @@
 
 package com.edeqa.eventbus;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Event with its completion. Posted by {@link EventBus#post(PostEvent)}, it counts holders that
+ * have handled it and completes the future when all targeted holders have handled it or when
+ * {@link #getMaxFulfillment()} holders have handled it. Counters are thread-safe.
+ */
 public class PostEvent<T> {
     private String eventName;
-    private T eventObject;
-    private int fulfillment;
-    private int maxFulfillment;
-    private boolean fulfilled;
+    private volatile T eventObject;
+    private final AtomicInteger fulfillment = new AtomicInteger();
+    private volatile int maxFulfillment;
+    private volatile boolean fulfilled;
+    private final CompletableFuture<PostEvent<T>> future = new CompletableFuture<>();
 
     public PostEvent() {
-        maxFulfillment = 1;
-        fulfillment = 0;
+        maxFulfillment = 0;
     }
 
     public PostEvent(String eventName) {
@@ -30,16 +38,31 @@ public class PostEvent<T> {
         this.eventObject = eventObject;
     }
 
+    /**
+     * @param maxFulfillment number of holders that must handle the event, 0 means all targeted holders
+     */
     public PostEvent(String eventName, T eventObject, int maxFulfillment) {
         this(eventName, eventObject);
         this.maxFulfillment = maxFulfillment;
     }
 
+    /**
+     * Acknowledges that one more holder has handled the event.
+     */
     public void increaseCounter() {
-        fulfillment++;
-        if(fulfillment >= getMaxFulfillment()) {
+        acknowledge();
+    }
+
+    /**
+     * @return true if event is fulfilled so next holders should not be called
+     */
+    boolean acknowledge() {
+        int count = fulfillment.incrementAndGet();
+        int max = maxFulfillment;
+        if(max > 0 && count >= max) {
             setFulfilled(true);
         }
+        return fulfilled;
     }
 
     @Override
@@ -52,8 +75,22 @@ public class PostEvent<T> {
         return fulfilled;
     }
 
+    /**
+     * Setting to true completes the future of event.
+     */
     public void setFulfilled(boolean fulfilled) {
         this.fulfilled = fulfilled;
+        if(fulfilled) {
+            future.complete(this);
+        }
+    }
+
+    /**
+     * @return future that completes by this event when it is fulfilled or when it was posted to
+     * all targeted holders; it is cancelled if the event has been dropped by the runner
+     */
+    public CompletableFuture<PostEvent<T>> getFuture() {
+        return future;
     }
 
     public String getEventName() {
@@ -81,6 +118,6 @@ public class PostEvent<T> {
     }
 
     public int getFulfillment() {
-        return fulfillment;
+        return fulfillment.get();
     }
 }
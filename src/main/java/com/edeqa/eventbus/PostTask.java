@@ -0,0 +1,96 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+/**
+ * Runnable that posts event to holders of event bus. Runners may recognize it to handle events
+ * specially, i.e. {@link BoundedRunner} coalesces pending events.
+ */
+final class PostTask implements Runnable {
+
+    final EventBus<?> eventBus;
+    final EventKey<?> eventKey;
+    final String eventName;
+    final Object key;
+    final PostEvent<?> postEvent;
+    Object eventObject;
+    /**
+     * Offset of event in {@link EventJournal} or -1.
+     */
+    long offset = -1;
+
+    /**
+     * @param eventKey may be null for events posted by name
+     */
+    PostTask(EventBus<?> eventBus, EventKey<?> eventKey, String eventName, Object eventObject, Object key) {
+        this.eventBus = eventBus;
+        this.eventKey = eventKey;
+        this.eventName = eventName;
+        this.eventObject = eventObject;
+        this.key = key;
+        this.postEvent = null;
+    }
+
+    /**
+     * Task completes the future of event after posting.
+     */
+    PostTask(EventBus<?> eventBus, PostEvent<?> postEvent, Object key) {
+        this.eventBus = eventBus;
+        this.eventKey = null;
+        this.eventName = postEvent.getEventName();
+        this.eventObject = postEvent.getEventObject();
+        this.key = key;
+        this.postEvent = postEvent;
+    }
+
+    /**
+     * Called by runner that drops the task.
+     */
+    void discard() {
+        if (postEvent != null) {
+            postEvent.getFuture().cancel(false);
+        }
+        eventBus.discarded();
+        eventBus.acknowledge(offset);
+    }
+
+    /**
+     * Called by runner that replaces the object of pending task by the newer one.
+     */
+    void replace(PostTask newer) {
+        eventBus.discarded();
+        eventBus.acknowledge(offset);
+        eventObject = newer.eventObject;
+        offset = newer.offset;
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (postEvent != null) {
+                eventBus.dispatch(postEvent);
+            } else if (eventKey != null) {
+                eventBus.dispatch(eventKey, eventObject);
+            } else {
+                eventBus.dispatch(eventName, eventObject);
+            }
+        } finally {
+            eventBus.acknowledge(offset);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PostTask{" +
+                "eventBus=" + eventBus.getEventBusName() +
+                ", eventName=" + eventName +
+                ", key=" + key +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit of event rate, used by {@link EventBus#setRateLimit(String, RateLimit)} and by
+ * {@link RateLimitedEntityHolder#rateLimits()}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public final class RateLimit {
+
+    public enum Mode {
+        /**
+         * Event is dispatched when there were no events during the interval, with the latest object.
+         * Events posted with ordering key are debounced separately for each key.
+         */
+        DEBOUNCE,
+        /**
+         * At most one event is dispatched during the interval, others are dropped. Unlike debounce,
+         * throttle limits the event name as a whole, ordering keys are not counted separately.
+         */
+        THROTTLE
+    }
+
+    private final Mode mode;
+    private final long intervalNanos;
+
+    private RateLimit(Mode mode, long interval, TimeUnit unit) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("RateLimit: interval must be positive.");
+        }
+        this.mode = mode;
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    public static RateLimit debounce(long interval, TimeUnit unit) {
+        return new RateLimit(Mode.DEBOUNCE, interval, unit);
+    }
+
+    public static RateLimit throttle(long interval, TimeUnit unit) {
+        return new RateLimit(Mode.THROTTLE, interval, unit);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getInterval(TimeUnit unit) {
+        return unit.convert(intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimit{" +
+                "mode=" + mode +
+                ", interval=" + TimeUnit.NANOSECONDS.toMillis(intervalNanos) + "ms" +
+                '}';
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.Map;
+
+/**
+ * Holder that limits the rate of events it receives. Limits are applied to this holder only, other
+ * holders receive all events.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface RateLimitedEntityHolder extends EntityHolder {
+
+    /**
+     * Called once on registration.
+     *
+     * @return limits by event name
+     */
+    Map<String, RateLimit> rateLimits();
+}
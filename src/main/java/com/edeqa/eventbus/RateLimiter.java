@@ -0,0 +1,126 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of {@link RateLimit} for one event name of event bus or of holder. Debounced events are
+ * emitted through the lane of the shared {@link HashedWheelTimer}, so the runner of bus does not
+ * run in the timer thread. Each ordering key is debounced separately so the latest object of one
+ * key does not replace the object of other key, while throttle limits the rate of the event name
+ * regardless of keys.
+ */
+final class RateLimiter {
+
+    /**
+     * Receives events passed by debounce.
+     */
+    interface Emitter {
+        void emit(Object eventObject, Object key);
+    }
+
+    private final RateLimit limit;
+    private final long intervalNanos;
+    private final Emitter emitter;
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong next = new AtomicLong(System.nanoTime());
+    private final Map<Object, Pending> pending = new HashMap<>();
+
+    RateLimiter(RateLimit limit, Emitter emitter) {
+        this.limit = limit;
+        this.intervalNanos = limit.getInterval(TimeUnit.NANOSECONDS);
+        this.emitter = emitter;
+    }
+
+    RateLimit getLimit() {
+        return limit;
+    }
+
+    long getSuppressed() {
+        return suppressed.get();
+    }
+
+    /**
+     * @return true if event must be dispatched now; false if it is suppressed or postponed by
+     * debounce
+     */
+    boolean offer(Object eventObject, Object key) {
+        if (limit.getMode() == RateLimit.Mode.THROTTLE) {
+            long now = System.nanoTime();
+            long allowed = next.get();
+            if (now - allowed >= 0 && next.compareAndSet(allowed, now + intervalNanos)) {
+                return true;
+            }
+            suppressed.incrementAndGet();
+            return false;
+        }
+        Pending latest;
+        synchronized (this) {
+            latest = pending.get(key);
+            if (latest != null) {
+                latest.eventObject = eventObject;
+                latest.last = System.nanoTime();
+                suppressed.incrementAndGet();
+                return false;
+            }
+            latest = new Pending(key, eventObject, System.nanoTime());
+            pending.put(key, latest);
+        }
+        HashedWheelTimer.getShared().schedule(latest, intervalNanos, TimeUnit.NANOSECONDS);
+        return false;
+    }
+
+    private void check(Pending latest) {
+        Object eventObject;
+        long remaining;
+        synchronized (this) {
+            remaining = latest.last + intervalNanos - System.nanoTime();
+            eventObject = latest.eventObject;
+            if (remaining <= 0) {
+                pending.remove(latest.key);
+            }
+        }
+        if (remaining > 0) {
+            HashedWheelTimer.getShared().schedule(latest, remaining, TimeUnit.NANOSECONDS);
+        } else {
+            final Object emitted = eventObject;
+            final Object key = latest.key;
+            HashedWheelTimer.getSharedLane().post(new Runnable() {
+                @Override
+                public void run() {
+                    emitter.emit(emitted, key);
+                }
+            });
+        }
+    }
+
+    /**
+     * The latest object of key postponed by debounce, guarded by the limiter.
+     */
+    private final class Pending implements Runnable {
+        private final Object key;
+        private Object eventObject;
+        private long last;
+
+        private Pending(Object key, Object eventObject, long last) {
+            this.key = key;
+            this.eventObject = eventObject;
+            this.last = last;
+        }
+
+        @Override
+        public void run() {
+            check(this);
+        }
+    }
+}
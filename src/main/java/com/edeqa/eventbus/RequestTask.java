@@ -0,0 +1,128 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Runnable that asks responders of event bus and completes the future by the first reply or by
+ * all replies. The future itself correlates replies with the request.
+ */
+final class RequestTask implements Runnable {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    private final EventBus<?> eventBus;
+    private final String eventName;
+    private final Object eventObject;
+    private final boolean all;
+    private final CompletableFuture<Object> future = new CompletableFuture<>();
+    private final List<Object> replies = new ArrayList<>();
+    private final AtomicInteger remaining = new AtomicInteger();
+
+    /**
+     * @param all true to wait for replies of all responders, false for the first reply
+     */
+    RequestTask(EventBus<?> eventBus, String eventName, Object eventObject, boolean all) {
+        this.eventBus = eventBus;
+        this.eventName = eventName;
+        this.eventObject = eventObject;
+        this.all = all;
+    }
+
+    CompletableFuture<Object> getFuture() {
+        return future;
+    }
+
+    /**
+     * Called by timer. The first reply request fails, all replies request completes by replies
+     * received so far.
+     */
+    void expire() {
+        if (all) {
+            future.complete(copyReplies());
+        } else {
+            future.completeExceptionally(new TimeoutException("EventBus: <" + eventBus.getEventBusName() + ">, request timed out: " + eventName));
+        }
+    }
+
+    @Override
+    public void run() {
+        EntityHolder[] responders = eventBus.responders(eventName);
+        remaining.set(responders.length);
+        if (responders.length == 0) {
+            finish();
+            return;
+        }
+        for (EntityHolder holder : responders) {
+            if (future.isDone()) {
+                return;
+            }
+            Object reply;
+            try {
+                reply = ((ResponderEntityHolder) holder).onRequest(eventName, eventObject);
+            } catch (Exception e) {
+                LOGGER.severe("EventBus: <" + eventBus.getEventBusName() + ">, request failed for holder: " + holder + ", eventName: " + eventName + ", eventObject: " + eventObject);
+                e.printStackTrace();
+                reply = null;
+            }
+            if (reply instanceof CompletionStage) {
+                ((CompletionStage<?>) reply).whenComplete(new BiConsumer<Object, Throwable>() {
+                    @Override
+                    public void accept(Object reply, Throwable throwable) {
+                        onReply(throwable == null ? reply : null);
+                    }
+                });
+            } else {
+                onReply(reply);
+            }
+        }
+    }
+
+    private void onReply(Object reply) {
+        if (reply != null) {
+            if (all) {
+                synchronized (replies) {
+                    replies.add(reply);
+                }
+            } else {
+                future.complete(reply);
+            }
+        }
+        if (remaining.decrementAndGet() == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        future.complete(all ? copyReplies() : null);
+    }
+
+    private List<Object> copyReplies() {
+        synchronized (replies) {
+            return new ArrayList<>(replies);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RequestTask{" +
+                "eventBus=" + eventBus.getEventBusName() +
+                ", eventName=" + eventName +
+                ", all=" + all +
+                '}';
+    }
+}
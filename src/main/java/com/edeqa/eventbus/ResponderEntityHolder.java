@@ -0,0 +1,25 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+/**
+ * Holder that answers requests made by {@link EventBus#request(String, Object, long, java.util.concurrent.TimeUnit)}.
+ * Only responders receive requests, other holders are not called.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface ResponderEntityHolder extends EntityHolder {
+
+    /**
+     * @param eventName   name of request
+     * @param eventObject payload of request
+     * @return reply, or {@link java.util.concurrent.CompletionStage} of reply if it is prepared
+     * asynchronously; null means no reply
+     */
+    Object onRequest(String eventName, Object eventObject) throws Exception;
+}
@@ -0,0 +1,348 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Runner based on the preallocated ring buffer of reusable slots, like Disruptor. Posting of event
+ * claims the next slot, fills it and publishes, so it does not allocate and does not take locks.
+ * Events are processed one by one in order of publishing by the own daemon thread.
+ * <p>
+ * If the buffer is full then poster waits for the free slot. If the runner thread itself posts
+ * into the full buffer then the event is processed immediately to avoid the deadlock.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class RingBufferRunner implements EventBus.Runner.Direct {
+
+    public enum ProducerType {
+        /**
+         * Events are posted only from one thread, including registration of holders. Claiming of
+         * slot is the plain increment.
+         */
+        SINGLE,
+        /**
+         * Events are posted from any threads. Claiming of slot is the atomic increment.
+         */
+        MULTI
+    }
+
+    public enum WaitStrategy {
+        /**
+         * Runner thread spins on the processor. Lowest latency, takes the whole processor.
+         */
+        BUSY_SPIN,
+        /**
+         * Runner thread yields to other threads while waiting.
+         */
+        YIELD,
+        /**
+         * Runner thread parks for a short time while waiting.
+         */
+        PARK,
+        /**
+         * Runner thread sleeps until the event is published. Lowest processor usage, highest latency.
+         */
+        BLOCKING
+    }
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+    private static final AtomicInteger counter = new AtomicInteger();
+    private static final long PARK_NANOS = 1000;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final ProducerType producerType;
+    private final WaitStrategy waitStrategy;
+    private final AtomicLongArray published;
+    private final Sequence claimed = new Sequence();
+    private final Sequence consumed = new Sequence();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Thread thread;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+
+    /**
+     * Creates runner for posting from any threads with {@link WaitStrategy#PARK}.
+     *
+     * @param capacity number of slots, must be a power of 2
+     */
+    public RingBufferRunner(int capacity) {
+        this(capacity, ProducerType.MULTI, WaitStrategy.PARK);
+    }
+
+    /**
+     * @param capacity     number of slots, must be a power of 2
+     * @param producerType {@link ProducerType#SINGLE} if events are posted only from one thread
+     * @param waitStrategy how the runner thread waits for events
+     */
+    public RingBufferRunner(int capacity, ProducerType producerType, WaitStrategy waitStrategy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("RingBufferRunner: capacity must be a power of 2: " + capacity);
+        }
+        this.producerType = producerType;
+        this.waitStrategy = waitStrategy;
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "EventBus-ring-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Returns factory that creates separate ring buffer for each event bus.
+     */
+    public static EventBus.Runner.Factory factory(final int capacity, final ProducerType producerType, final WaitStrategy waitStrategy) {
+        return new EventBus.Runner.Factory() {
+            @Override
+            public EventBus.Runner create(String eventBusName) {
+                return new RingBufferRunner(capacity, producerType, waitStrategy);
+            }
+        };
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        publish(null, null, null, null, runnable);
+    }
+
+    @Override
+    public void post(EventBus<?> eventBus, String eventName, Object eventObject) {
+        publish(eventBus, null, eventName, eventObject, null);
+    }
+
+    @Override
+    public void post(EventBus<?> eventBus, EventKey<?> eventKey, Object eventObject) {
+        publish(eventBus, eventKey, null, eventObject, null);
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of events waiting in the buffer.
+     */
+    public int size() {
+        return (int) (claimed.get() - consumed.get());
+    }
+
+    /**
+     * Stops the runner thread. Events waiting in the buffer will not be processed.
+     */
+    public void shutdown() {
+        running = false;
+        wakeUp();
+        thread.interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferRunner{" +
+                "thread=" + thread.getName() +
+                ", capacity=" + slots.length +
+                ", producerType=" + producerType +
+                ", waitStrategy=" + waitStrategy +
+                '}';
+    }
+
+    private void publish(EventBus<?> eventBus, EventKey<?> eventKey, String eventName, Object eventObject, Runnable runnable) {
+        long sequence;
+        if (producerType == ProducerType.SINGLE) {
+            sequence = claimed.get() + 1;
+            if (!waitForSlot(sequence)) {
+                runInline(eventBus, eventKey, eventName, eventObject, runnable);
+                return;
+            }
+            claimed.lazySet(sequence);
+        } else {
+            while (true) {
+                long current = claimed.get();
+                sequence = current + 1;
+                if (sequence - slots.length > consumed.get()) {
+                    if (!waitForSlot(sequence)) {
+                        runInline(eventBus, eventKey, eventName, eventObject, runnable);
+                        return;
+                    }
+                    continue;
+                }
+                if (claimed.compareAndSet(current, sequence)) {
+                    break;
+                }
+            }
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.eventBus = eventBus;
+        slot.eventKey = eventKey;
+        slot.eventName = eventName;
+        slot.eventObject = eventObject;
+        slot.runnable = runnable;
+        if (waitStrategy == WaitStrategy.BLOCKING) {
+            // full fence, so either runner sees the event or poster sees it sleeping
+            published.set((int) sequence & mask, sequence);
+            if (sleeping) {
+                wakeUp();
+            }
+        } else {
+            published.lazySet((int) sequence & mask, sequence);
+        }
+    }
+
+    /**
+     * Waits until the slot for sequence becomes free.
+     *
+     * @return false if called from the runner thread and the buffer is full
+     */
+    private boolean waitForSlot(long sequence) {
+        int spins = 0;
+        while (sequence - slots.length > consumed.get()) {
+            if (Thread.currentThread() == thread) {
+                return false;
+            }
+            spins = idle(spins);
+        }
+        return true;
+    }
+
+    private void runInline(EventBus<?> eventBus, EventKey<?> eventKey, String eventName, Object eventObject, Runnable runnable) {
+        LOGGER.fine("RingBufferRunner: buffer is full, processing in runner thread: " + (eventKey != null ? eventKey.getName() : eventName));
+        process(eventBus, eventKey, eventName, eventObject, runnable);
+    }
+
+    private void consume() {
+        long next = consumed.get() + 1;
+        int spins = 0;
+        while (running) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                spins = waitForEvent(next, spins);
+                continue;
+            }
+            spins = 0;
+            Slot slot = slots[index];
+            EventBus<?> eventBus = slot.eventBus;
+            EventKey<?> eventKey = slot.eventKey;
+            String eventName = slot.eventName;
+            Object eventObject = slot.eventObject;
+            Runnable runnable = slot.runnable;
+            slot.eventBus = null;
+            slot.eventKey = null;
+            slot.eventName = null;
+            slot.eventObject = null;
+            slot.runnable = null;
+            consumed.lazySet(next);
+            next++;
+            process(eventBus, eventKey, eventName, eventObject, runnable);
+        }
+    }
+
+    private void process(EventBus<?> eventBus, EventKey<?> eventKey, String eventName, Object eventObject, Runnable runnable) {
+        try {
+            if (runnable != null) {
+                runnable.run();
+            } else if (eventKey != null) {
+                eventBus.dispatch(eventKey, eventObject);
+            } else {
+                eventBus.dispatch(eventName, eventObject);
+            }
+        } catch (Throwable e) {
+            LOGGER.severe("RingBufferRunner: processing failed: " + (runnable != null ? runnable : eventName));
+            e.printStackTrace();
+        }
+    }
+
+    private int waitForEvent(long next, int spins) {
+        if (waitStrategy != WaitStrategy.BLOCKING) {
+            return idle(spins);
+        }
+        lock.lock();
+        try {
+            sleeping = true;
+            if (running && published.get((int) next & mask) != next) {
+                notEmpty.await();
+            }
+        } catch (InterruptedException e) {
+            // stopped by shutdown() or woken up
+        } finally {
+            sleeping = false;
+            lock.unlock();
+        }
+        return 0;
+    }
+
+    private int idle(int spins) {
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            default:
+                if (spins < 100) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+        }
+        return spins + 1;
+    }
+
+    private void wakeUp() {
+        lock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reusable holder of event or runnable.
+     */
+    private static final class Slot {
+        EventBus<?> eventBus;
+        EventKey<?> eventKey;
+        String eventName;
+        Object eventObject;
+        Runnable runnable;
+    }
+
+    /**
+     * Sequence padded against false sharing with neighbour fields.
+     */
+    @SuppressWarnings("unused")
+    private static final class Sequence extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        long p1, p2, p3, p4, p5, p6, p7;
+
+        Sequence() {
+            super(-1);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handle of event posted later by {@link EventBus#postDelayed(String, Object, long, TimeUnit)},
+ * {@link EventBus#postAt(String, Object, long)} or
+ * {@link EventBus#postPeriodically(String, Object, long, long, TimeUnit)}. Event is posted into
+ * the runner of event bus, like it was posted by {@link EventBus#post(String, Object)} at that time.
+ * The shared {@link HashedWheelTimer} only hands the post to its shared lane, so the direct or
+ * blocking runner of bus does not stop the timer, and posts keep the order of their deadlines.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public final class ScheduledPost {
+
+    private final EventBus<?> eventBus;
+    private final String eventName;
+    private final Object eventObject;
+    private final long periodNanos;
+    private final Runnable fire = new Runnable() {
+        @Override
+        public void run() {
+            fire();
+        }
+    };
+    private final Runnable post = new Runnable() {
+        @Override
+        public void run() {
+            if (!cancelled) {
+                eventBus.post(eventName, eventObject);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return ScheduledPost.this.toString();
+        }
+    };
+    private volatile HashedWheelTimer.Timeout timeout;
+    private volatile boolean cancelled;
+    private volatile long count;
+    private long deadline;
+
+    /**
+     * @param periodNanos period of posting, 0 to post once
+     */
+    ScheduledPost(EventBus<?> eventBus, String eventName, Object eventObject, long delayNanos, long periodNanos) {
+        this.eventBus = eventBus;
+        this.eventName = eventName;
+        this.eventObject = eventObject;
+        this.periodNanos = periodNanos;
+        deadline = System.nanoTime() + delayNanos;
+        timeout = HashedWheelTimer.getShared().schedule(fire, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void fire() {
+        if (cancelled) {
+            return;
+        }
+        count++;
+        HashedWheelTimer.getSharedLane().post(post);
+        if (periodNanos <= 0) {
+            return;
+        }
+        deadline += periodNanos;
+        timeout = HashedWheelTimer.getShared().schedule(fire, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (cancelled) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Cancels next postings of event.
+     *
+     * @return false if event was already posted once or cancelled before
+     */
+    public boolean cancel() {
+        if (cancelled) {
+            return false;
+        }
+        cancelled = true;
+        return timeout.cancel() || periodNanos > 0;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    /**
+     * Returns the number of times the event was posted.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduledPost{" +
+                "eventBus=" + eventBus.getEventBusName() +
+                ", eventName=" + eventName +
+                ", count=" + count +
+                ", cancelled=" + cancelled +
+                '}';
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runner that performs runnables one by one in order of posting, using any thread of the executor
+ * given. Serial runners over the same executor are independent lanes: each one keeps its own order
+ * but different lanes run in parallel.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class SerialRunner implements EventBus.Runner {
+
+    /**
+     * Maximal number of runnables performed by lane at once, then the lane gives the thread to
+     * other lanes of the same executor.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+    private static volatile ExecutorService sharedExecutor;
+
+    private final Executor executor;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean paused;
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Creates lane over the executor shared between all serial runners.
+     */
+    public SerialRunner() {
+        this(getSharedExecutor());
+    }
+
+    public SerialRunner(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the pool of daemon threads shared by serial runners created without executor. Lane
+     * holds the thread only while it has runnables, so the pool grows up to the number of busy
+     * lanes and the slow lane does not delay others.
+     */
+    public static ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            synchronized (SerialRunner.class) {
+                if (sharedExecutor == null) {
+                    sharedExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                        private final AtomicInteger counter = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            Thread thread = new Thread(runnable, "EventBus-lane-" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Returns factory that creates separate lane for each event bus over the executor given.
+     */
+    public static EventBus.Runner.Factory factory(final Executor executor) {
+        return new EventBus.Runner.Factory() {
+            @Override
+            public EventBus.Runner create(String eventBusName) {
+                return new SerialRunner(executor);
+            }
+        };
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        queue.offer(runnable);
+        schedule();
+    }
+
+    /**
+     * Returns the number of runnables waiting in the lane.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(drain);
+        }
+    }
+
+    /**
+     * Stops the lane after the current runnable without holding the thread, until
+     * {@link #resume()}. Runnables posted meanwhile wait in the queue.
+     */
+    void pause() {
+        paused = true;
+    }
+
+    void resume() {
+        paused = false;
+        if (!queue.isEmpty()) {
+            schedule();
+        }
+    }
+
+    private void drain() {
+        Runnable runnable;
+        int count = 0;
+        while (!paused && count++ < BATCH_SIZE && (runnable = queue.poll()) != null) {
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                LOGGER.severe("SerialRunner: runnable failed: " + runnable);
+                e.printStackTrace();
+            }
+        }
+        scheduled.set(false);
+        // resume() that failed to schedule while the lane was draining is seen here
+        if (!paused && !queue.isEmpty()) {
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codec that uses Java serialization, so it accepts any {@link java.io.Serializable} object
+ * including null. Simple but slow and verbose; prefer specific codecs for frequent events.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class SerializableCodec implements EventCodec<Object> {
+
+    public static final SerializableCodec INSTANCE = new SerializableCodec();
+
+    @Override
+    public void encode(Object eventObject, final ByteBuffer buffer) {
+        try (ObjectOutputStream output = new ObjectOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                buffer.put(bytes, offset, length);
+            }
+        })) {
+            output.writeObject(eventObject);
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("SerializableCodec: object is not serializable: " + eventObject, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Object decode(final ByteBuffer buffer) {
+        try (ObjectInputStream input = new ObjectInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                length = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, length);
+                return length;
+            }
+        })) {
+            return input.readObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("SerializableCodec: class not found.", e);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Links the event bus with buses of the same name in other processes of this machine. Events
+ * posted by name or {@link EventKey} are written into the memory-mapped ring file of this process
+ * in the shared directory, the bridge reads rings of other processes and posts their events by
+ * {@link EventBus#receive(String, Object)}, so they are not sent back.
+ * <p>
+ * Events posted concurrently are combined into one frame. Reading thread spins while events
+ * arrive and parks with growing pause up to {@link #MAX_IDLE_NANOS} when there are none. Writer
+ * never waits for readers, the reader that is behind by more than the capacity of ring loses
+ * events, see {@link #getLostCount()}. Each bridge reads only events written after it has
+ * started.
+ * <pre>
+ *     SharedMemoryBridge bridge = new SharedMemoryBridge(EventBus.getOrCreate("orders"));
+ *     ...
+ *     bridge.close();
+ * </pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class SharedMemoryBridge implements EventBus.Forwarder, Closeable {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 1024 * 1024;
+    public static final long MAX_IDLE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private static final String SUFFIX = ".ring";
+    private static final long SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int SPINS = 1000;
+
+    private final EventBus<?> eventBus;
+    private final File directory;
+    private final File file;
+    private final EventCodec<Object> codec;
+    private final SharedRing ring;
+    private final ConcurrentLinkedQueue<SharedRing.Event> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final Map<File, SharedRing> peers = new ConcurrentHashMap<>();
+    private final Thread reader;
+    private volatile Set<String> eventNames;
+    private volatile boolean running = true;
+
+    /**
+     * Creates the bridge in directory "eventbus-&lt;name of bus&gt;" of temporary files, with
+     * {@link BinaryCodec#INSTANCE} that accepts only primitives, strings and byte arrays.
+     */
+    public SharedMemoryBridge(EventBus<?> eventBus) throws IOException {
+        this(eventBus, new File(System.getProperty("java.io.tmpdir"), "eventbus-" + eventBus.getEventBusName()),
+                BinaryCodec.INSTANCE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Bridge reads ring files of all processes in the directory. The directory is created
+     * accessible by owner only, existing directory must belong to the user of this process. Use
+     * {@link SerializableCodec} (also as fallback of {@link BinaryCodec}) only if other users can
+     * not write into the directory: deserialization of objects written by attacker may run
+     * arbitrary code.
+     *
+     * @param directory directory shared by all processes of the bridge
+     * @param codec     codec of event objects, must be the same in all processes
+     * @param capacity  size of ring of this process, power of two not less than 1024
+     */
+    public SharedMemoryBridge(EventBus<?> eventBus, File directory, EventCodec<Object> codec, int capacity) throws IOException {
+        createDirectory(directory);
+        this.eventBus = eventBus;
+        this.directory = directory;
+        this.codec = codec;
+        this.file = new File(directory, UUID.randomUUID() + SUFFIX);
+        this.ring = SharedRing.create(file, capacity);
+        scan(false);
+
+        reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }, "EventBus-bridge-" + eventBus.getEventBusName());
+        reader.setDaemon(true);
+        reader.start();
+        eventBus.addForwarder(this);
+        LOGGER.info("SharedMemoryBridge: <" + eventBus.getEventBusName() + "> linked in " + directory);
+    }
+
+    /**
+     * Limits forwarded events to the names given. All events are forwarded by default.
+     *
+     * @param eventNames names of events or null for all events
+     */
+    public SharedMemoryBridge setEventNames(String... eventNames) {
+        this.eventNames = eventNames == null ? null : Collections.unmodifiableSet(new HashSet<>(Arrays.asList(eventNames)));
+        return this;
+    }
+
+    public Set<String> getEventNames() {
+        return eventNames;
+    }
+
+    /**
+     * Creates the directory accessible by owner only, or checks that existing one belongs to the
+     * user of this process and restricts its permissions.
+     */
+    private static void createDirectory(File directory) throws IOException {
+        Path path = directory.toPath();
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("SharedMemoryBridge: cannot create directory " + directory);
+            }
+            //noinspection ResultOfMethodCallIgnored
+            directory.setReadable(false, false);
+            //noinspection ResultOfMethodCallIgnored
+            directory.setWritable(false, false);
+            //noinspection ResultOfMethodCallIgnored
+            directory.setExecutable(false, false);
+            if (!directory.setReadable(true, true) || !directory.setWritable(true, true) || !directory.setExecutable(true, true)) {
+                throw new IOException("SharedMemoryBridge: cannot restrict access to directory " + directory);
+            }
+            return;
+        }
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+        if (!directory.isDirectory()) {
+            Files.createDirectories(path, PosixFilePermissions.asFileAttribute(ownerOnly));
+        }
+        UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!Files.getOwner(path).equals(user)) {
+            throw new IOException("SharedMemoryBridge: directory " + directory + " belongs to other user: " + Files.getOwner(path));
+        }
+        Files.setPosixFilePermissions(path, ownerOnly);
+    }
+
+    @Override
+    public void forward(EventBus<?> eventBus, String eventName, Object eventObject) {
+        Set<String> names = eventNames;
+        if (!running || (names != null && !names.contains(eventName))) {
+            return;
+        }
+        outbound.offer(new SharedRing.Event(eventName, eventObject));
+        // the thread that took the ring writes events of other threads too
+        while (!outbound.isEmpty() && writing.compareAndSet(false, true)) {
+            try {
+                sent.addAndGet(ring.write(outbound, codec));
+            } finally {
+                writing.set(false);
+            }
+        }
+    }
+
+    private void read() {
+        SharedRing.Handler handler = new SharedRing.Handler() {
+            @Override
+            public void onEvent(String eventName, Object eventObject) {
+                received.incrementAndGet();
+                eventBus.receive(eventName, eventObject);
+            }
+        };
+        long nextScan = System.nanoTime() + SCAN_INTERVAL_NANOS;
+        int idle = 0;
+        long park = 1000;
+        while (running) {
+            int count = 0;
+            try {
+                for (SharedRing peer : peers.values()) {
+                    count += peer.read(handler, codec);
+                }
+                if (System.nanoTime() - nextScan >= 0) {
+                    scan(true);
+                    nextScan = System.nanoTime() + SCAN_INTERVAL_NANOS;
+                }
+            } catch (Exception e) {
+                LOGGER.severe("SharedMemoryBridge: <" + eventBus.getEventBusName() + ">, reading failed in " + directory);
+                e.printStackTrace();
+            }
+            if (count > 0) {
+                idle = 0;
+                park = 1000;
+            } else if (idle < SPINS) {
+                if (++idle > SPINS / 2) {
+                    Thread.yield();
+                }
+            } else {
+                LockSupport.parkNanos(park);
+                park = Math.min(park * 2, MAX_IDLE_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Opens rings of new processes and forgets rings that were removed.
+     *
+     * @param fromStart read events written before, true for processes started after this one
+     */
+    private void scan(boolean fromStart) throws IOException {
+        File[] files = directory.listFiles();
+        Set<File> found = new HashSet<>();
+        if (files != null) {
+            for (File peer : files) {
+                if (!peer.getName().endsWith(SUFFIX) || peer.equals(file)) {
+                    continue;
+                }
+                found.add(peer);
+                if (!peers.containsKey(peer)) {
+                    SharedRing opened = SharedRing.open(peer, fromStart);
+                    if (opened != null) {
+                        peers.put(peer, opened);
+                    }
+                }
+            }
+        }
+        for (Iterator<File> iterator = peers.keySet().iterator(); iterator.hasNext(); ) {
+            if (!found.contains(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public EventBus<?> getEventBus() {
+        return eventBus;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return number of events written for other processes
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /**
+     * @return number of events received from other processes
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return number of events of other processes that were overwritten before this bridge read
+     * them; increase the capacity if it grows
+     */
+    public long getLostCount() {
+        long lost = 0;
+        for (SharedRing peer : peers.values()) {
+            lost += peer.getLost();
+        }
+        return lost;
+    }
+
+    /**
+     * Stops forwarding and reading and removes the ring of this process.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        eventBus.removeForwarder(this);
+        LockSupport.unpark(reader);
+        try {
+            reader.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+        LOGGER.info("SharedMemoryBridge: <" + eventBus.getEventBusName() + "> unlinked from " + directory);
+    }
+
+    @Override
+    public String toString() {
+        return "SharedMemoryBridge{" + eventBus.getEventBusName() + ", " + file + "}";
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.logging.Logger;
+
+/**
+ * Memory-mapped ring file with one writing process and any number of reading processes. Writer
+ * never waits for readers: reader that falls behind by more than the capacity loses the frames it
+ * has not read and continues from the latest one.
+ * <p>
+ * Header: int magic (written last), int capacity, long tail intent, long tail. Frames are aligned
+ * to 8 bytes: int length, int count of events, long sequence of the first event and events, each
+ * is the name written as by {@link BinaryCodec} and the object encoded by {@link EventCodec}. Frame
+ * that does not fit before the end of ring is preceded by padding with count -1. Writer sets tail
+ * intent before it writes the frame and tail after, so reader can check that the frame was not
+ * overwritten while it was read.
+ */
+final class SharedRing {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+
+    static final int HEADER = 64;
+
+    private static final int MAGIC = 0x45427231;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int TAIL_INTENT_OFFSET = 8;
+    private static final int TAIL_OFFSET = 16;
+    private static final int FRAME_HEADER = 16;
+    private static final int PADDING = -1;
+    private static final int MAX_FRAME = 64 * 1024;
+
+    /*
+     * Mapped buffer has no ordered access, so stores and loads of tail are separated from stores
+     * and loads of frames by fences: VarHandle.releaseFence/acquireFence on Java 9+ or
+     * Unsafe.storeFence/loadFence on Java 8. If neither is available then volatile access of the
+     * barrier field is used, it orders memory only on x86 where stores are not reordered with
+     * other stores and loads are not reordered with other loads.
+     */
+    private static final MethodHandle STORE_FENCE;
+    private static final MethodHandle LOAD_FENCE;
+    private static volatile int barrier;
+
+    static {
+        MethodHandle store = null, load = null;
+        MethodType type = MethodType.methodType(void.class);
+        try {
+            Class<?> varHandle = Class.forName("java.lang.invoke.VarHandle");
+            store = MethodHandles.publicLookup().findStatic(varHandle, "releaseFence", type);
+            load = MethodHandles.publicLookup().findStatic(varHandle, "acquireFence", type);
+        } catch (Throwable e) {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field field = unsafeClass.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                Object unsafe = field.get(null);
+                store = MethodHandles.lookup().findVirtual(unsafeClass, "storeFence", type).bindTo(unsafe);
+                load = MethodHandles.lookup().findVirtual(unsafeClass, "loadFence", type).bindTo(unsafe);
+            } catch (Throwable e1) {
+                store = null;
+                load = null;
+                LOGGER.warning("SharedRing: memory fences are not available, ordering of ring is guaranteed on x86 only: " + e1);
+            }
+        }
+        STORE_FENCE = store;
+        LOAD_FENCE = load;
+    }
+
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final int maxFrame;
+
+    // writer
+    private long tail;
+    private long sequence;
+
+    // reader
+    private long cursor;
+    private long expected = -1;
+    private volatile long lost;
+
+    private SharedRing(MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.maxFrame = Math.min(MAX_FRAME, capacity / 4);
+    }
+
+    /**
+     * Creates the ring file for writing.
+     *
+     * @param capacity size of data, power of two not less than 1024
+     */
+    static SharedRing create(File file, int capacity) throws IOException {
+        if (capacity < 1024 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("SharedRing: capacity must be a power of two not less than 1024: " + capacity);
+        }
+        MappedByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(HEADER + capacity);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER + capacity);
+        }
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(TAIL_INTENT_OFFSET, 0);
+        buffer.putLong(TAIL_OFFSET, 0);
+        storeFence();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        return new SharedRing(buffer, capacity);
+    }
+
+    /**
+     * Opens the ring file for reading.
+     *
+     * @param fromStart read frames written before, otherwise start from the current tail
+     * @return ring or null if the file is not ready yet
+     */
+    static SharedRing open(File file, boolean fromStart) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER) {
+                return null;
+            }
+            FileChannel channel = raf.getChannel();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            int capacity = header.getInt(CAPACITY_OFFSET);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC || raf.length() != HEADER + capacity) {
+                return null;
+            }
+            SharedRing ring = new SharedRing(channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER + capacity), capacity);
+            if (fromStart) {
+                ring.expected = 0;
+            } else {
+                ring.cursor = ring.buffer.getLong(TAIL_OFFSET);
+            }
+            return ring;
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of events that reader lost because writer has overwritten them
+     */
+    long getLost() {
+        return lost;
+    }
+
+    /**
+     * Writes events from the queue as frames until the queue is empty. Must not be called
+     * concurrently.
+     *
+     * @return number of written events
+     */
+    int write(Queue<Event> events, EventCodec<Object> codec) {
+        int written = 0;
+        Event event = events.poll();
+        while (event != null) {
+            int index = (int) (tail & mask);
+            int limit = Math.min(maxFrame, capacity - index);
+            if (limit <= FRAME_HEADER) {
+                pad(index, limit);
+                continue;
+            }
+            buffer.putLong(TAIL_INTENT_OFFSET, tail + limit);
+            storeFence();
+
+            ByteBuffer frame = buffer.duplicate();
+            frame.limit(HEADER + index + limit).position(HEADER + index + FRAME_HEADER);
+            int count = 0;
+            while (event != null) {
+                int position = frame.position();
+                try {
+                    BinaryCodec.putString(event.eventName, frame);
+                    codec.encode(event.eventObject, frame);
+                } catch (BufferOverflowException e) {
+                    frame.position(position);
+                    break;
+                } catch (Exception e) {
+                    frame.position(position);
+                    LOGGER.severe("SharedRing: encoding failed for eventName: " + event.eventName + ", eventObject: " + event.eventObject);
+                    e.printStackTrace();
+                    event = events.poll();
+                    continue;
+                }
+                count++;
+                event = events.poll();
+            }
+            if (count > 0) {
+                int length = align(frame.position() - HEADER - index);
+                buffer.putInt(HEADER + index, length);
+                buffer.putInt(HEADER + index + 4, count);
+                buffer.putLong(HEADER + index + 8, sequence);
+                sequence += count;
+                written += count;
+                publish(tail + length);
+            } else if (event != null && limit < maxFrame) {
+                pad(index, limit);
+            } else if (event != null) {
+                LOGGER.severe("SharedRing: event does not fit into frame of " + maxFrame + " bytes, eventName: " + event.eventName);
+                publish(tail);
+                event = events.poll();
+            } else {
+                publish(tail);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Fills the rest of ring, so the next frame starts from the beginning.
+     */
+    private void pad(int index, int length) {
+        buffer.putLong(TAIL_INTENT_OFFSET, tail + length);
+        storeFence();
+        buffer.putInt(HEADER + index, length);
+        buffer.putInt(HEADER + index + 4, PADDING);
+        publish(tail + length);
+    }
+
+    private void publish(long tail) {
+        storeFence();
+        buffer.putLong(TAIL_OFFSET, tail);
+        buffer.putLong(TAIL_INTENT_OFFSET, tail);
+        this.tail = tail;
+    }
+
+    /**
+     * Reads frames written since the last call and passes their events to the handler. Must not be
+     * called concurrently.
+     *
+     * @return number of events read
+     */
+    int read(Handler handler, EventCodec<Object> codec) {
+        long tail = buffer.getLong(TAIL_OFFSET);
+        loadFence();
+        int read = 0;
+        List<Event> events = null;
+        while (cursor < tail) {
+            if (tail - cursor > capacity) {
+                cursor = tail;
+                break;
+            }
+            int index = (int) (cursor & mask);
+            int length = buffer.getInt(HEADER + index);
+            int count = buffer.getInt(HEADER + index + 4);
+            long first = 0;
+            Exception error = null;
+            if (count != PADDING) {
+                first = buffer.getLong(HEADER + index + 8);
+                if (events == null) {
+                    events = new ArrayList<>();
+                }
+                events.clear();
+                try {
+                    ByteBuffer frame = buffer.duplicate();
+                    frame.limit(HEADER + index + length).position(HEADER + index + FRAME_HEADER);
+                    for (int i = 0; i < count; i++) {
+                        String eventName = BinaryCodec.getString(frame);
+                        events.add(new Event(eventName, codec.decode(frame)));
+                    }
+                } catch (Exception e) {
+                    error = e;
+                }
+            }
+            loadFence();
+            if (buffer.getLong(TAIL_INTENT_OFFSET) - cursor > capacity) {
+                // overwritten while it was read
+                cursor = tail = buffer.getLong(TAIL_OFFSET);
+                loadFence();
+                continue;
+            }
+            if (length < 8 || length > capacity - index || (length & 7) != 0 || error != null) {
+                LOGGER.severe("SharedRing: broken frame at " + cursor + ", skipping to " + tail);
+                if (error != null) {
+                    error.printStackTrace();
+                }
+                cursor = tail;
+                expected = -1;
+                break;
+            }
+            cursor += length;
+            if (count == PADDING) {
+                continue;
+            }
+            if (expected >= 0 && first > expected) {
+                lost += first - expected;
+            }
+            expected = first + count;
+            for (Event event : events) {
+                handler.onEvent(event.eventName, event.eventObject);
+            }
+            read += count;
+        }
+        return read;
+    }
+
+    private static void storeFence() {
+        if (STORE_FENCE != null) {
+            try {
+                STORE_FENCE.invokeExact();
+                return;
+            } catch (Throwable ignored) {
+            }
+        }
+        barrier = 0;
+    }
+
+    @SuppressWarnings("UnusedAssignment")
+    private static void loadFence() {
+        if (LOAD_FENCE != null) {
+            try {
+                LOAD_FENCE.invokeExact();
+                return;
+            } catch (Throwable ignored) {
+            }
+        }
+        int ignored = barrier;
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    interface Handler {
+        void onEvent(String eventName, Object eventObject);
+    }
+
+    static final class Event {
+        final String eventName;
+        final Object eventObject;
+
+        Event(String eventName, Object eventObject) {
+            this.eventName = eventName;
+            this.eventObject = eventObject;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the last object of each sticky event of {@link EventBus}, together with holders it was
+ * dispatched to, so replay does not deliver it again to the holder that has received it. The
+ * number of objects is limited, the least recently posted one is evicted first.
+ */
+final class StickyCache {
+
+    static final int DEFAULT_CAPACITY = 64;
+
+    private volatile Set<String> eventNames = Collections.emptySet();
+    private volatile int capacity = DEFAULT_CAPACITY;
+    // insertion order, reads do not change the order of eviction
+    private final LinkedHashMap<String, Value> values = new LinkedHashMap<String, Value>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Value> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    synchronized void setSticky(String eventName, boolean enabled) {
+        Set<String> names = new HashSet<>(eventNames);
+        if (enabled) {
+            names.add(eventName);
+        } else {
+            names.remove(eventName);
+            values.remove(eventName);
+        }
+        eventNames = Collections.unmodifiableSet(names);
+    }
+
+    boolean isEnabled() {
+        return !eventNames.isEmpty();
+    }
+
+    boolean isSticky(String eventName) {
+        Set<String> names = eventNames;
+        return !names.isEmpty() && names.contains(eventName);
+    }
+
+    synchronized void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("EventBus: sticky capacity must be positive.");
+        }
+        this.capacity = capacity;
+        while (values.size() > capacity) {
+            values.remove(values.keySet().iterator().next());
+        }
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param holders holders the object is dispatched to
+     */
+    synchronized void put(String eventName, Object eventObject, EntityHolder[] holders) {
+        values.remove(eventName);
+        values.put(eventName, new Value(eventObject, holders));
+    }
+
+    synchronized Object get(String eventName) {
+        Value value = values.get(eventName);
+        return value != null ? value.eventObject : null;
+    }
+
+    synchronized boolean remove(String eventName) {
+        boolean present = values.containsKey(eventName);
+        values.remove(eventName);
+        return present;
+    }
+
+    synchronized void clear() {
+        values.clear();
+    }
+
+    /**
+     * @return copy of cached objects, the least recently posted first
+     */
+    synchronized List<Map.Entry<String, Value>> snapshot() {
+        List<Map.Entry<String, Value>> list = new ArrayList<>(values.size());
+        for (Map.Entry<String, Value> entry : values.entrySet()) {
+            list.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+        }
+        return list;
+    }
+
+    static final class Value {
+        final Object eventObject;
+        private final EntityHolder[] holders;
+
+        private Value(Object eventObject, EntityHolder[] holders) {
+            this.eventObject = eventObject;
+            this.holders = holders;
+        }
+
+        /**
+         * @return true if the object was dispatched to holder
+         */
+        boolean isDispatchedTo(EntityHolder holder) {
+            for (EntityHolder h : holders) {
+                if (h == holder) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * EventBus - a simple event bus
+ * https://github.com/Edeqa/EventBus
+ *
+ * Copyright (C) 2017-18 Edeqa <http://www.edeqa.com>
+ * Created by Edward Mukhutdinov <tujger@gmail.com>
+ */
+
+package com.edeqa.eventbus;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Runner for holders that block in {@link EntityHolder#onEvent(String, Object)}, i.e. doing I/O.
+ * Each runnable is performed in its own virtual thread, so thousands of blocked holders don't need
+ * thousands of system threads. Runs on platform threads if virtual threads are not supported by JVM.
+ * <p>
+ * The number of runnables performed at once may be limited, others wait in the queue. Runnables are
+ * performed in parallel, use {@link VirtualThreadRunner#factory(int, boolean)} to keep the order of
+ * events inside of bus.
+ */
+@SuppressWarnings({"WeakerAccess", "unused", "HardCodedStringLiteral"})
+public class VirtualThreadRunner implements EventBus.Runner {
+
+    private final static Logger LOGGER = Logger.getLogger(EventBus.class.getName());
+    private static volatile ExecutorService sharedExecutor;
+    private static volatile boolean virtual;
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final Runnable worker = new Runnable() {
+        @Override
+        public void run() {
+            work();
+        }
+    };
+
+    /**
+     * Creates runner without concurrency limit.
+     */
+    public VirtualThreadRunner() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public VirtualThreadRunner(int maxConcurrency) {
+        this(maxConcurrency, getSharedExecutor());
+    }
+
+    public VirtualThreadRunner(int maxConcurrency, Executor executor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("VirtualThreadRunner: concurrency limit must be positive: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns executor that starts new virtual thread for each task. If virtual threads are not
+     * supported then returns the pool of daemon platform threads.
+     */
+    public static ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            synchronized (VirtualThreadRunner.class) {
+                if (sharedExecutor == null) {
+                    try {
+                        sharedExecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                        virtual = true;
+                    } catch (Exception e) {
+                        LOGGER.config("VirtualThreadRunner: virtual threads are not supported, platform threads will be used.");
+                        sharedExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                            private final AtomicInteger counter = new AtomicInteger();
+
+                            @Override
+                            public Thread newThread(Runnable runnable) {
+                                Thread thread = new Thread(runnable, "EventBus-blocking-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+                    }
+                }
+            }
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Returns true if runners use virtual threads.
+     */
+    public static boolean isVirtual() {
+        getSharedExecutor();
+        return virtual;
+    }
+
+    /**
+     * Returns factory that creates runner for each event bus.
+     *
+     * @param maxConcurrency maximal number of runnables performed at once in the bus
+     * @param ordered        if true then runnables of the bus are performed one by one in order of
+     *                       posting, each one in virtual thread; maxConcurrency is ignored
+     */
+    public static EventBus.Runner.Factory factory(final int maxConcurrency, final boolean ordered) {
+        return new EventBus.Runner.Factory() {
+            @Override
+            public EventBus.Runner create(String eventBusName) {
+                if (ordered) {
+                    return new SerialRunner(getSharedExecutor());
+                }
+                return new VirtualThreadRunner(maxConcurrency);
+            }
+        };
+    }
+
+    @Override
+    public void post(Runnable runnable) {
+        queue.offer(runnable);
+        spawn();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Returns the number of runnables waiting for the free slot.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    private void spawn() {
+        while (!queue.isEmpty()) {
+            int count = running.get();
+            if (count >= maxConcurrency) {
+                return;
+            }
+            if (running.compareAndSet(count, count + 1)) {
+                executor.execute(worker);
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        Runnable runnable;
+        while ((runnable = queue.poll()) != null) {
+            if (!queue.isEmpty()) {
+                spawn();
+            }
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                LOGGER.severe("VirtualThreadRunner: runnable failed: " + runnable);
+                e.printStackTrace();
+            }
+        }
+        running.decrementAndGet();
+        if (!queue.isEmpty()) {
+            spawn();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created 10/17/26.
+ */
+public class BatchEntityHolderTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RecordingHolder holder;
+    private RecordingBatchHolder batchHolder;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        holder = new RecordingHolder();
+        batchHolder = new RecordingBatchHolder();
+        eventBus.register(holder);
+        eventBus.register(batchHolder);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void postBatch() throws Exception {
+        List<PostEvent<?>> events = new ArrayList<>();
+        events.add(new PostEvent<>("event1", 1));
+        events.add(new PostEvent<>("event2", 2));
+        events.add(new PostEvent<>("batch_only", 3));
+        eventBus.postBatch(events);
+
+        assertEquals(Arrays.<Object>asList(1, 2), holder.events);
+        assertEquals(1, batchHolder.batches.size());
+        assertEquals(3, batchHolder.batches.get(0).size());
+        assertEquals("batch_only", batchHolder.batches.get(0).get(2).getEventName());
+    }
+
+    @Test
+    public void postBatchInterrupted() throws Exception {
+        List<PostEvent<?>> events = new ArrayList<>();
+        events.add(new PostEvent<>("event1", 1));
+        events.add(new PostEvent<>("stop", 2));
+        EventBus.postBatch(eventBus.getEventBusName(), events);
+
+        assertEquals(Arrays.<Object>asList(1, 2), holder.events);
+        assertEquals(1, batchHolder.batches.get(0).size());
+    }
+
+    @Test
+    public void onEvent() throws Exception {
+        eventBus.post("event1", 1);
+        assertEquals(Arrays.<Object>asList(1), holder.events);
+        assertEquals(Arrays.<Object>asList(1), batchHolder.events);
+        assertEquals(0, batchHolder.batches.size());
+    }
+
+    @Test
+    public void postEmptyBatch() throws Exception {
+        eventBus.postBatch(new ArrayList<PostEvent<?>>());
+        assertEquals(0, batchHolder.batches.size());
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        final List<Object> events = new ArrayList<>();
+
+        @Override
+        public List<String> events() {
+            return Arrays.asList("event1", "event2", "stop");
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            return !"stop".equals(eventName);
+        }
+    }
+
+    private class RecordingBatchHolder extends RecordingHolder implements BatchEntityHolder {
+        final List<List<PostEvent<?>>> batches = new ArrayList<>();
+
+        @Override
+        public List<String> events() {
+            return Arrays.asList("event1", "event2", "stop", "batch_only");
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            return true;
+        }
+
+        @Override
+        public void onEvents(List<PostEvent<?>> events) {
+            batches.add(events);
+        }
+    }
+}
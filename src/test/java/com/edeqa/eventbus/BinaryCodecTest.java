@@ -0,0 +1,119 @@
+package com.edeqa.eventbus;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Created 10/17/26.
+ */
+public class BinaryCodecTest {
+
+    private static final List<Object> VALUES = Arrays.<Object>asList(null, true, false, (byte) -1, (short) 300,
+            'x', 42, -1L, 1.5f, Math.PI, "", "plain", "\u043a\u0438\u0440\u0438\u043b\u043b\u0438\u0446\u0430", "emoji \ud83d\ude00 mixed \u20ac");
+
+    @Test
+    public void heapBuffer() throws Exception {
+        roundTrip(ByteBuffer.allocate(1024));
+    }
+
+    @Test
+    public void directBuffer() throws Exception {
+        roundTrip(ByteBuffer.allocateDirect(1024));
+    }
+
+    @Test
+    public void bytes() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        BinaryCodec.INSTANCE.encode(new byte[]{1, 2, 3}, buffer);
+        buffer.flip();
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) BinaryCodec.INSTANCE.decode(buffer));
+    }
+
+    @Test
+    public void compact() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        BinaryCodec.INSTANCE.encode(42, buffer);
+        assertEquals(5, buffer.position());
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void overflow() throws Exception {
+        BinaryCodec.INSTANCE.encode("does not fit", ByteBuffer.allocate(8));
+    }
+
+    @Test
+    public void truncated() throws Exception {
+        for (byte type : new byte[]{BinaryCodec.STRING, BinaryCodec.BYTES}) {
+            for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(5), ByteBuffer.allocateDirect(5)}) {
+                buffer.put(type).putInt(Integer.MAX_VALUE).flip();
+                try {
+                    BinaryCodec.INSTANCE.decode(buffer);
+                    fail();
+                } catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        BinaryCodec.INSTANCE.encode("truncated", buffer);
+        buffer.flip().limit(buffer.limit() - 1);
+        try {
+            BinaryCodec.INSTANCE.decode(buffer);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void fallback() throws Exception {
+        try {
+            BinaryCodec.INSTANCE.encode(Collections.singletonList(1), ByteBuffer.allocate(64));
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        BinaryCodec codec = new BinaryCodec(SerializableCodec.INSTANCE);
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        codec.encode(Collections.singletonList(1), buffer);
+        buffer.flip();
+        assertEquals(Collections.singletonList(1), codec.decode(buffer));
+    }
+
+    @Test
+    public void journal() throws Exception {
+        java.io.File directory = java.nio.file.Files.createTempDirectory("binary").toFile();
+        EventJournal journal = new EventJournal(directory, BinaryCodec.INSTANCE, 4096, EventJournal.Fsync.OS, 0, 0);
+        journal.append("event", "value");
+        final Object[] read = new Object[1];
+        journal.read(0, new EventJournal.Visitor() {
+            @Override
+            public boolean visit(EventJournal.Record record) {
+                read[0] = record.getEventObject();
+                return true;
+            }
+        });
+        journal.close();
+        assertEquals("value", read[0]);
+    }
+
+    private void roundTrip(ByteBuffer buffer) {
+        for (Object value : VALUES) {
+            BinaryCodec.INSTANCE.encode(value, buffer);
+        }
+        buffer.flip();
+        for (Object value : VALUES) {
+            assertEquals(value, BinaryCodec.INSTANCE.decode(buffer));
+        }
+        assertEquals(0, buffer.remaining());
+    }
+}
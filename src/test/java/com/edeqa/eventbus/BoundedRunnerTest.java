@@ -0,0 +1,169 @@
+package com.edeqa.eventbus;
+
+import com.edeqa.eventbus.BoundedRunner.Overflow;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created 10/17/26.
+ */
+public class BoundedRunnerTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RecordingHolder holder;
+    private CountDownLatch started;
+    private CountDownLatch released;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        started = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        released.countDown();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void dropNewest() throws Exception {
+        BoundedRunner runner = start(2, Overflow.DROP_NEWEST);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post("event", i);
+        }
+        assertEquals(2, runner.size());
+        assertEquals(3, runner.getDropped());
+        assertEquals(Arrays.<Object>asList(0, 1), finish(2));
+    }
+
+    @Test
+    public void dropNewestCancelsFuture() throws Exception {
+        BoundedRunner runner = start(1, Overflow.DROP_NEWEST);
+        PostEvent<Integer> first = new PostEvent<>("event", 0);
+        PostEvent<Integer> second = new PostEvent<>("event", 1);
+        eventBus.post(first);
+        assertTrue(eventBus.post(second).isCancelled());
+        assertEquals(1, runner.getDropped());
+        assertEquals(Arrays.<Object>asList(0), finish(1));
+        assertEquals(1, first.getFuture().get(10, TimeUnit.SECONDS).getFulfillment());
+    }
+
+    @Test
+    public void dropOldest() throws Exception {
+        BoundedRunner runner = start(2, Overflow.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post("event", i);
+        }
+        assertEquals(2, runner.size());
+        assertEquals(3, runner.getDropped());
+        assertEquals(Arrays.<Object>asList(3, 4), finish(2));
+    }
+
+    @Test
+    public void fail() throws Exception {
+        BoundedRunner runner = start(2, Overflow.FAIL);
+        eventBus.post("event", 0);
+        eventBus.post("event", 1);
+        try {
+            eventBus.post("event", 2);
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, runner.getRejected());
+        }
+        assertEquals(Arrays.<Object>asList(0, 1), finish(2));
+    }
+
+    @Test
+    public void coalesce() throws Exception {
+        BoundedRunner runner = start(10, Overflow.COALESCE);
+        for (int i = 0; i < 5; i++) {
+            eventBus.post("event", i);
+            eventBus.postByKey("event", i, "key");
+        }
+        assertEquals(2, runner.size());
+        assertEquals(8, runner.getCoalesced());
+        assertEquals(Arrays.<Object>asList(4, 4), finish(2));
+    }
+
+    @Test
+    public void block() throws Exception {
+        final BoundedRunner runner = start(1, Overflow.BLOCK);
+        final CountDownLatch posted = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 5; i++) {
+                    eventBus.post("event", i);
+                }
+                posted.countDown();
+            }
+        }).start();
+        assertTrue(!posted.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, runner.size());
+        assertEquals(Arrays.<Object>asList(0, 1, 2, 3, 4), finish(5));
+        assertTrue(posted.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Registers holder and keeps the runner busy until {@link #finish(int)}.
+     */
+    private BoundedRunner start(int capacity, Overflow overflow) throws Exception {
+        BoundedRunner runner = new BoundedRunner(capacity, overflow);
+        eventBus.setRunner(runner);
+        holder = new RecordingHolder();
+        eventBus.register(holder);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return runner;
+    }
+
+    private List<Object> finish(int expected) throws Exception {
+        holder.latch = new CountDownLatch(expected);
+        released.countDown();
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        return holder.events;
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch latch = new CountDownLatch(0);
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            latch.countDown();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class ClusterNodeTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RemoteHolder holder;
+    private final List<ClusterNode> nodes = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        holder = new RemoteHolder();
+        eventBus.register(holder);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (ClusterNode node : nodes) {
+            node.close();
+        }
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void delivery() throws Exception {
+        ClusterNode receiver = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY);
+        ClusterNode sender = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY)
+                .addPeer(receiver.getLocalAddress())
+                .link(eventBus, "ping");
+
+        for (int i = 0; i < 1000; i++) {
+            eventBus.post("ping", i);
+        }
+        eventBus.post("local", -1);
+        waitFor(holder, 1000);
+
+        assertEquals(range(0, 1000), holder.remote);
+        assertEquals(1000, sender.getSentCount());
+        assertEquals(1000, receiver.getReceivedCount());
+        waitForPending(sender);
+    }
+
+    @Test
+    public void reconnect() throws Exception {
+        int port = freePort();
+        ClusterNode sender = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY)
+                .addPeer(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))
+                .link(eventBus, "ping");
+        for (int i = 0; i < 100; i++) {
+            eventBus.post("ping", i);
+        }
+        Thread.sleep(200);
+        assertEquals(100, sender.getPendingCount());
+        assertTrue(holder.remote.isEmpty());
+
+        node(port, ClusterNode.DEFAULT_QUEUE_CAPACITY);
+        waitFor(holder, 100);
+        assertEquals(range(0, 100), holder.remote);
+        waitForPending(sender);
+    }
+
+    @Test
+    public void atLeastOnceAfterRestart() throws Exception {
+        ClusterNode receiver = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY);
+        int port = receiver.getLocalAddress().getPort();
+        ClusterNode sender = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY)
+                .addPeer(receiver.getLocalAddress())
+                .link(eventBus, "ping");
+        for (int i = 0; i < 500; i++) {
+            eventBus.post("ping", i);
+        }
+        receiver.close();
+        for (int i = 500; i < 1000; i++) {
+            eventBus.post("ping", i);
+        }
+        node(port, ClusterNode.DEFAULT_QUEUE_CAPACITY);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (holder.distinct().size() < 1000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(new TreeSet<>(range(0, 1000)), holder.distinct());
+        waitForPending(sender);
+    }
+
+    @Test
+    public void boundedQueue() throws Exception {
+        ClusterNode sender = node(0, 10)
+                .addPeer(new InetSocketAddress(InetAddress.getLoopbackAddress(), freePort()))
+                .link(eventBus);
+        for (int i = 0; i < 20; i++) {
+            eventBus.post("ping", i);
+        }
+        assertEquals(10, sender.getPendingCount());
+        assertEquals(10, sender.getDroppedCount());
+    }
+
+    @Test
+    public void oversizedFrame() throws Exception {
+        ClusterNode receiver = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY);
+        try (Socket socket = new Socket(receiver.getLocalAddress().getAddress(), receiver.getLocalAddress().getPort())) {
+            socket.setSoTimeout(10000);
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.writeInt(Integer.MAX_VALUE);
+            out.write(new byte[16]);
+            out.flush();
+            assertEquals(-1, socket.getInputStream().read());
+        }
+
+        ClusterNode sender = node(0, ClusterNode.DEFAULT_QUEUE_CAPACITY)
+                .addPeer(receiver.getLocalAddress())
+                .link(eventBus, "ping");
+        eventBus.post("ping", 1);
+        waitFor(holder, 1);
+        assertEquals(Collections.<Object>singletonList(1), holder.remote);
+        waitForPending(sender);
+    }
+
+    private ClusterNode node(int port, int queueCapacity) throws Exception {
+        ClusterNode node = new ClusterNode(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BinaryCodec.INSTANCE, queueCapacity);
+        nodes.add(node);
+        return node;
+    }
+
+    private int freePort() throws Exception {
+        ClusterNode node = new ClusterNode(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        int port = node.getLocalAddress().getPort();
+        node.close();
+        return port;
+    }
+
+    private void waitFor(RemoteHolder holder, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (holder.remote.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void waitForPending(ClusterNode node) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (node.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, node.getPendingCount());
+    }
+
+    private List<Object> range(int from, int to) {
+        List<Object> list = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    /**
+     * Records events that came from other nodes.
+     */
+    private class RemoteHolder extends AbstractEntityHolder {
+        final List<Object> remote = Collections.synchronizedList(new ArrayList<>());
+
+        TreeSet<Object> distinct() {
+            synchronized (remote) {
+                return new TreeSet<>(remote);
+            }
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            if ("ping".equals(eventName) && Thread.currentThread().getName().startsWith("EventBus-cluster-")) {
+                remote.add(eventObject);
+            }
+            return true;
+        }
+    }
+}
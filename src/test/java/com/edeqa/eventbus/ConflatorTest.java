@@ -0,0 +1,159 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created 10/17/26.
+ */
+public class ConflatorTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RecordingHolder holder;
+    private CountDownLatch released;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(new SerialRunner());
+        eventBus.setConflated("location", true);
+        holder = new RecordingHolder();
+        eventBus.register(holder);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        released = new CountDownLatch(1);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        released.countDown();
+        eventBus.setConflated("location", false);
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void conflate() throws Exception {
+        long conflated = eventBus.getConflatedCount();
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("location", i);
+            eventBus.post("progress", i);
+        }
+        assertEquals(9, eventBus.getConflatedCount() - conflated);
+        assertEquals(Collections.<Object>singletonList(9), finish("location", 1));
+        assertEquals(10, holder.get("progress").size());
+        assertTrue(eventBus.isConflated("location"));
+        assertFalse(eventBus.isConflated("progress"));
+    }
+
+    @Test
+    public void conflateByKey() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            eventBus.postByKey("location", "a" + i, "a");
+            eventBus.postByKey("location", "b" + i, "b");
+        }
+        assertEquals(Arrays.<Object>asList("a9", "b9"), finish("location", 2));
+    }
+
+    @Test
+    public void postAfterDispatch() throws Exception {
+        eventBus.post("location", 1);
+        assertEquals(Collections.<Object>singletonList(1), finish("location", 1));
+        holder.latch = new CountDownLatch(1);
+        eventBus.post(EventKey.of("location", Integer.class), 2);
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.<Object>asList(1, 2), holder.get("location"));
+    }
+
+    @Test
+    public void postAfterRejected() throws Exception {
+        eventBus.setRunner(new EventBus.Runner() {
+            @Override
+            public void post(Runnable runnable) {
+                throw new RejectedExecutionException("full");
+            }
+        });
+        try {
+            eventBus.post("location", 1);
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.post("location", 2);
+        assertEquals(Collections.<Object>singletonList(2), holder.get("location"));
+    }
+
+    private List<Object> finish(String eventName, int expected) throws Exception {
+        holder.latch = new CountDownLatch(expected);
+        released.countDown();
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        final CountDownLatch drained = new CountDownLatch(1);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                drained.countDown();
+            }
+        });
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        return holder.get(eventName);
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        final List<String> names = Collections.synchronizedList(new ArrayList<String>());
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch latch = new CountDownLatch(0);
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            synchronized (this) {
+                names.add(eventName);
+                events.add(eventObject);
+            }
+            if ("location".equals(eventName)) {
+                latch.countDown();
+            }
+            return true;
+        }
+
+        synchronized List<Object> get(String eventName) {
+            List<Object> result = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++) {
+                if (eventName.equals(names.get(i))) {
+                    result.add(events.get(i));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.edeqa.eventbus;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Created 10/17/26.
+ */
+public class DispatchTableTest {
+
+    private SampleHolder holder1;
+    private SampleHolder holder2;
+    private SampleHolder holder3;
+    private DispatchTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        holder1 = new SampleHolder("first");
+        holder2 = new SampleHolder("second", "event1");
+        holder3 = new SampleHolder("third", "event1", "event2");
+
+        Map<String, EntityHolder> holders = new LinkedHashMap<>();
+        Map<String, Map<String, EntityHolder>> events = new HashMap<>();
+        for (SampleHolder holder : new SampleHolder[]{holder3, holder1, holder2}) {
+            holders.put(holder.getType(), holder);
+            for (String event : holder.events()) {
+                if (!events.containsKey(event)) events.put(event, new HashMap<String, EntityHolder>());
+                events.get(event).put(holder.getType(), holder);
+            }
+        }
+        table = new DispatchTable(holders, events);
+    }
+
+    @Test
+    public void lookup() throws Exception {
+        assertArrayEquals(new EntityHolder[]{holder3, holder2}, table.lookup("event1"));
+        assertArrayEquals(new EntityHolder[]{holder3}, table.lookup("event2"));
+    }
+
+    @Test
+    public void lookupKey() throws Exception {
+        assertArrayEquals(new EntityHolder[]{holder3, holder2}, table.lookup(EventKey.of("event1", String.class)));
+        assertArrayEquals(new EntityHolder[]{holder3, holder1, holder2}, table.lookup(EventKey.of("event4")));
+    }
+
+    @Test
+    public void lookupBroadcast() throws Exception {
+        assertArrayEquals(new EntityHolder[]{holder3, holder1, holder2}, table.lookup("event3"));
+    }
+
+    @Test
+    public void empty() throws Exception {
+        assertEquals(0, DispatchTable.EMPTY.lookup("event1").length);
+    }
+
+    private class SampleHolder extends AbstractEntityHolder {
+        private final String type;
+        private final List<String> events = new ArrayList<>();
+
+        SampleHolder(String type, String... events) {
+            this.type = type;
+            for (String event : events) this.events.add(event);
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public List<String> events() {
+            return events;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class EventBusMetricsTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.setMetricsEnabled(true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.setMetricsEnabled(false);
+        eventBus.setRateLimit("progress", null);
+        eventBus.setConflated("location", false);
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void counters() throws Exception {
+        eventBus.register(new CountingHolder());
+        eventBus.register(new StoppingHolder());
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("count", i);
+        }
+        eventBus.post("stop");
+        eventBus.post("fail");
+
+        EventBusMetrics metrics = eventBus.getMetrics();
+        assertEquals(12, metrics.getPostedCount());
+        assertEquals(12, metrics.getDispatchedCount());
+        assertEquals(1, metrics.getInterruptedCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(0, metrics.getQueueDepth());
+        assertEquals(12, metrics.getDispatchLatency().getCount());
+        assertTrue(metrics.getDispatchLatencyP99() <= metrics.getDispatchLatencyMax());
+
+        HolderMetrics counting = metrics.getHolder(CountingHolder.class.getSimpleName());
+        assertEquals(12, counting.getHandledCount());
+        assertEquals(1, counting.getFailedCount());
+        assertEquals(12, counting.getLatency().getCount());
+        HolderMetrics stopping = metrics.getHolder(StoppingHolder.class.getSimpleName());
+        assertEquals(1, stopping.getInterruptedCount());
+
+        metrics.reset();
+        assertEquals(0, metrics.getPostedCount());
+        assertEquals(0, counting.getHandledCount());
+    }
+
+    @Test
+    public void filteredAndDropped() throws Exception {
+        eventBus.register(new CountingHolder());
+        eventBus.setRateLimit("progress", RateLimit.throttle(1, TimeUnit.HOURS));
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("progress", i);
+        }
+        assertEquals(9, eventBus.getMetrics().getFilteredCount());
+        assertEquals(1, eventBus.getMetrics().getPostedCount());
+
+        eventBus.setRunner(new SerialRunner());
+        eventBus.setConflated("location", true);
+        final CountDownLatch released = new CountDownLatch(1);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("location", i);
+        }
+        assertEquals(9, eventBus.getMetrics().getDroppedCount());
+        assertEquals(1, eventBus.getMetrics().getQueueDepth());
+        released.countDown();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (eventBus.getMetrics().getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, eventBus.getMetrics().getQueueDepth());
+    }
+
+    @Test
+    public void jmx() throws Exception {
+        eventBus.register(new CountingHolder());
+        EventBusMetrics metrics = eventBus.getMetrics();
+        metrics.export();
+        assertTrue(metrics.isExported());
+        eventBus.post("count", 1);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(metrics.getObjectName(), "PostedCount"));
+        assertEquals(1L, server.getAttribute(metrics.getObjectName(CountingHolder.class.getSimpleName()), "HandledCount"));
+
+        eventBus.setMetricsEnabled(false);
+        assertFalse(server.isRegistered(metrics.getObjectName()));
+        assertFalse(server.isRegistered(metrics.getObjectName(CountingHolder.class.getSimpleName())));
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        assertNotNull(eventBus.getMetrics());
+        eventBus.setMetricsEnabled(false);
+        assertFalse(eventBus.isMetricsEnabled());
+        assertNull(eventBus.getMetrics());
+        eventBus.register(new CountingHolder());
+        eventBus.post("count", 1);
+        assertNull(eventBus.getMetrics());
+    }
+
+    private static class CountingHolder extends AbstractEntityHolder {
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            if ("fail".equals(eventName)) {
+                throw new IllegalStateException("fail");
+            }
+            return true;
+        }
+    }
+
+    private static class StoppingHolder extends AbstractEntityHolder {
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            return !"stop".equals(eventName);
+        }
+    }
+}
@@ -11,13 +11,19 @@ import org.junit.runners.MethodSorters;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.TooManyListenersException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import static com.edeqa.eventbus.AbstractEntityHolder.PRINT_HOLDER_NAME;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created 9/20/17.
@@ -287,6 +293,31 @@ public class EventBusTest {
         }
     }
 
+    @Test
+    public void postTyped() throws Exception {
+        EventKey<String> testEvent = EventKey.of("test_event", String.class);
+        eventBus1.post(testEvent, "test object");
+        synchronized (context2) {
+            context2.wait();
+        }
+        EventBus.post(eventBus2.getEventBusName(), testEvent, "test object");
+        synchronized (context3) {
+            context3.wait();
+        }
+    }
+
+    @Test
+    public void postByKey() throws Exception {
+        eventBus1.postByKey("test_event", "test object", "key");
+        synchronized (context2) {
+            context2.wait();
+        }
+        EventBus.postByKey(eventBus2.getEventBusName(), "test_event", "test object", "key");
+        synchronized (context3) {
+            context3.wait();
+        }
+    }
+
     @Test
     public void postRunnable() throws Exception {
         eventBus1.postRunnable(new Runnable() {
@@ -381,6 +412,38 @@ public class EventBusTest {
         }
     }
 
+    @Test
+    public void defaultRunnerSurvivesFailure() throws Exception {
+        final Thread[] threads = new Thread[2];
+        final CountDownLatch latch = new CountDownLatch(1);
+        EventBus.DEFAULT_RUNNER.post(new Runnable() {
+            @Override
+            public void run() {
+                threads[0] = Thread.currentThread();
+                throw new IllegalStateException("expected failure");
+            }
+        });
+        EventBus.DEFAULT_RUNNER.post(new Runnable() {
+            @Override
+            public void run() {
+                threads[1] = Thread.currentThread();
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertSame(threads[0], threads[1]);
+    }
+
+    @Test
+    public void setRunnerFactory() throws Exception {
+        eventBus1.setRunnerFactory(EventBus.RUNNER_PER_BUS);
+        eventBus2.setRunnerFactory(EventBus.RUNNER_PER_BUS);
+        assertTrue(eventBus1.getRunner() instanceof SerialRunner);
+        assertNotSame(eventBus1.getRunner(), eventBus2.getRunner());
+        eventBus1.setRunner(runner);
+        eventBus2.setRunner(runner);
+    }
+
     @Test
     public void setMainRunner() throws Exception {
 //        EventBus.setMainRunner(EventBus.DEFAULT_RUNNER);
@@ -623,4 +686,105 @@ public class EventBusTest {
         EventBus.setLoggingLevel(Level.OFF);
     }
 
+    @Test
+    public void stressRegisterAndPost() throws Exception {
+        final int producers = 4;
+        final int posts = 2000;
+        final int churns = 500;
+
+        final ExecutorService dispatcher = Executors.newFixedThreadPool(4);
+        final AtomicInteger failures = new AtomicInteger();
+        //noinspection unchecked
+        final EventBus<EntityHolder> eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate("stress");
+        eventBus.setRunner(new Runner() {
+            @Override
+            public void post(final Runnable runnable) {
+                dispatcher.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            runnable.run();
+                        } catch (Throwable e) {
+                            e.printStackTrace();
+                            failures.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        });
+
+        final CountingHolder persistent = new CountingHolder("persistent");
+        eventBus.register(persistent);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(producers + 1);
+        for (int i = 0; i < producers; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < posts; j++) {
+                            eventBus.post("stress_event", j);
+                        }
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                        failures.incrementAndGet();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    for (int j = 0; j < churns; j++) {
+                        CountingHolder holder = new CountingHolder("churn" + (j % 10));
+                        eventBus.register(holder);
+                        eventBus.unregister(holder);
+                    }
+                } catch (Throwable e) {
+                    e.printStackTrace();
+                    failures.incrementAndGet();
+                }
+                done.countDown();
+            }
+        }).start();
+
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, failures.get());
+        assertEquals(producers * posts, persistent.counter.get());
+        assertEquals(1, eventBus.getHoldersList().size());
+
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+    }
+
+    public class CountingHolder extends AbstractEntityHolder {
+        private final String type;
+        final AtomicInteger counter = new AtomicInteger();
+
+        CountingHolder(String type) {
+            super();
+            this.type = type;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            counter.incrementAndGet();
+            return true;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,268 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created 10/17/26.
+ */
+public class EventJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RecordingHolder holder;
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        holder = new RecordingHolder();
+        eventBus.register(holder);
+        directory = folder.newFolder("journal");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (eventBus.getJournal() != null) {
+            eventBus.getJournal().close();
+            eventBus.setJournal(null);
+        }
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void appendAndRead() throws Exception {
+        EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+        assertEquals(0, journal.append("event1", "object1"));
+        assertEquals(1, journal.append("event2", 2));
+        assertEquals(2, journal.append("event3", null));
+
+        final List<String> records = new ArrayList<>();
+        long next = journal.read(1, new EventJournal.Visitor() {
+            @Override
+            public boolean visit(EventJournal.Record record) {
+                records.add(record.getOffset() + ":" + record.getEventName() + "=" + record.getEventObject());
+                return true;
+            }
+        });
+        assertEquals(3, next);
+        assertEquals(Arrays.asList("1:event2=2", "2:event3=null"), records);
+        journal.close();
+
+        journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+        assertEquals(3, journal.getNextOffset());
+        assertEquals(3, journal.append("event4", 4));
+        journal.close();
+    }
+
+    @Test
+    public void rotateAndRetain() throws Exception {
+        EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE, 512, EventJournal.Fsync.OS, 0, 2);
+        for (int i = 0; i < 100; i++) {
+            journal.acknowledge(journal.append("event", i));
+        }
+        assertEquals(100, journal.getAcknowledgedOffset());
+        assertTrue(journal.getSegmentCount() <= 3);
+
+        final List<Object> objects = new ArrayList<>();
+        journal.read(0, new EventJournal.Visitor() {
+            @Override
+            public boolean visit(EventJournal.Record record) {
+                objects.add(record.getEventObject());
+                return true;
+            }
+        });
+        assertEquals(99, objects.get(objects.size() - 1));
+        assertTrue(objects.size() < 100);
+        journal.close();
+    }
+
+    @Test
+    public void replayUnacknowledged() throws Exception {
+        eventBus.setJournal(new EventJournal(directory, SerializableCodec.INSTANCE));
+        eventBus.post("event", 1);
+        eventBus.setRunner(new EventBus.Runner() {
+            @Override
+            public void post(Runnable runnable) {
+                // lost by crash
+            }
+        });
+        eventBus.post("event", 2);
+        eventBus.post("event", 3);
+        eventBus.getJournal().close();
+
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+        eventBus.setJournal(journal);
+        assertEquals(1, journal.getAcknowledgedOffset());
+        assertEquals(2, journal.replay(eventBus));
+        assertEquals(Arrays.<Object>asList(1, 2, 3), holder.events);
+        assertEquals(3, journal.getAcknowledgedOffset());
+        journal.close();
+
+        journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+        eventBus.setJournal(journal);
+        assertEquals(0, journal.replay(eventBus));
+    }
+
+    @Test
+    public void acknowledgeRejected() throws Exception {
+        EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+        eventBus.setJournal(journal);
+        eventBus.setRunner(new EventBus.Runner() {
+            @Override
+            public void post(Runnable runnable) {
+                throw new RejectedExecutionException("full");
+            }
+        });
+        List<PostEvent<Integer>> batch = new ArrayList<>();
+        batch.add(new PostEvent<>("event", 3));
+        batch.add(new PostEvent<>("event", 4));
+        for (Runnable post : new Runnable[]{
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        eventBus.post("event", 1);
+                    }
+                },
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        eventBus.post(new PostEvent<>("event", 2));
+                    }
+                },
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        eventBus.postBatch(batch);
+                    }
+                }}) {
+            try {
+                post.run();
+                fail();
+            } catch (RejectedExecutionException e) {
+                // rejected events must not stay pending
+            }
+        }
+        assertEquals(4, journal.getNextOffset());
+        assertEquals(4, journal.getAcknowledgedOffset());
+    }
+
+    @Test
+    public void acknowledgeConflated() throws Exception {
+        final CountDownLatch released = new CountDownLatch(1);
+        eventBus.setRunner(new SerialRunner());
+        eventBus.setConflated("location", true);
+        try {
+            EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+            eventBus.setJournal(journal);
+            eventBus.postRunnable(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+            holder.latch = new CountDownLatch(1);
+            for (int i = 0; i < 5; i++) {
+                eventBus.post("location", i);
+            }
+            assertEquals(4, journal.getAcknowledgedOffset());
+            released.countDown();
+            assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && journal.getAcknowledgedOffset() < 5; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(5, journal.getAcknowledgedOffset());
+            assertEquals(Collections.<Object>singletonList(4), holder.events);
+        } finally {
+            eventBus.setConflated("location", false);
+        }
+    }
+
+    @Test
+    public void concurrentAppend() throws Exception {
+        final EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE, 4096, EventJournal.Fsync.EVERY_EVENT, 0, 0);
+        final Set<Long> offsets = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 50; i++) {
+                        offsets.add(journal.append("event", i));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(200, offsets.size());
+        final int[] count = new int[1];
+        journal.read(0, new EventJournal.Visitor() {
+            @Override
+            public boolean visit(EventJournal.Record record) {
+                count[0]++;
+                return true;
+            }
+        });
+        assertEquals(200, count[0]);
+        journal.close();
+    }
+
+    @Test
+    public void intervalFsync() throws Exception {
+        EventJournal journal = new EventJournal(directory, SerializableCodec.INSTANCE, 4096, EventJournal.Fsync.INTERVAL, 10, 0);
+        journal.acknowledge(journal.append("event", 1));
+        Thread.sleep(50);
+        journal.close();
+        journal = new EventJournal(directory, SerializableCodec.INSTANCE);
+        assertEquals(1, journal.getAcknowledgedOffset());
+        assertEquals(1, journal.getNextOffset());
+        journal.close();
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        volatile CountDownLatch latch = new CountDownLatch(0);
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            latch.countDown();
+            return true;
+        }
+    }
+}
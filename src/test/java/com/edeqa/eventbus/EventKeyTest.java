@@ -0,0 +1,50 @@
+package com.edeqa.eventbus;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Created 10/17/26.
+ */
+public class EventKeyTest {
+
+    @Test
+    public void of() throws Exception {
+        EventKey<Object> key = EventKey.of("event_key_test");
+        assertSame(key, EventKey.of("event_key_test"));
+        assertSame(key, EventKey.find("event_key_test"));
+        assertEquals("event_key_test", key.getName());
+        assertEquals(Object.class, key.getType());
+    }
+
+    @Test
+    public void typed() throws Exception {
+        EventKey<String> key = EventKey.of("event_key_typed", String.class);
+        assertEquals(String.class, key.getType());
+        assertEquals(EventKey.of("event_key_typed"), key);
+        assertEquals(EventKey.of("event_key_typed").getId(), key.getId());
+    }
+
+    @Test
+    public void ids() throws Exception {
+        EventKey<Object> first = EventKey.of("event_key_first");
+        EventKey<Object> second = EventKey.of("event_key_second");
+        assertNotEquals(first, second);
+        assertEquals(first.getId() + 1, second.getId());
+    }
+
+    @Test
+    public void find() throws Exception {
+        assertNull(EventKey.find("event_key_never_created"));
+        assertNull(EventKey.find(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void undefined() throws Exception {
+        EventKey.of(null);
+    }
+}
@@ -0,0 +1,131 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class FlightRecorderEventsTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue(FlightRecorderEvents.isSupported());
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.register(new TracedHolder());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (eventBus != null) {
+            FlightRecorderEvents.setEnabled(false);
+            eventBus.clear();
+            eventBus.setRunner(previousRunner);
+        }
+    }
+
+    @Test
+    public void record() throws Exception {
+        assertTrue(FlightRecorderEvents.setEnabled(true));
+        Object eventObject = new Object();
+        List<RecordedEvent> events = record(eventObject);
+
+        RecordedEvent post = find(events, FlightRecorderEvents.POST);
+        assertEquals(eventBus.getEventBusName(), post.getString("eventBus"));
+        assertEquals("traced", post.getString("eventName"));
+        assertEquals(System.identityHashCode(eventObject), post.getInt("objectId"));
+        assertTrue(post.getBoolean("admitted"));
+        assertNotNull(post.getStackTrace());
+        assertTrue(containsFrame(post.getStackTrace().getFrames(), getClass().getName()));
+
+        RecordedEvent enqueue = find(events, FlightRecorderEvents.ENQUEUE);
+        assertEquals(System.identityHashCode(eventObject), enqueue.getInt("objectId"));
+
+        RecordedEvent dispatch = find(events, FlightRecorderEvents.DISPATCH);
+        assertEquals("traced", dispatch.getString("eventName"));
+        assertEquals(1, dispatch.getInt("holders"));
+
+        RecordedEvent handle = find(events, FlightRecorderEvents.HANDLE);
+        assertEquals(TracedHolder.class.getSimpleName(), handle.getString("holder"));
+        assertEquals("proceed", handle.getString("result"));
+        assertTrue(handle.getDuration().toNanos() >= 0);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        FlightRecorderEvents.setEnabled(false);
+        assertFalse(FlightRecorderEvents.isEnabled());
+        List<RecordedEvent> events = record(new Object());
+        for (RecordedEvent event : events) {
+            assertFalse(event.getEventType().getName().startsWith("com.edeqa.eventbus."));
+        }
+    }
+
+    private List<RecordedEvent> record(Object eventObject) throws Exception {
+        File file = File.createTempFile("eventbus", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                for (String name : new String[]{FlightRecorderEvents.POST, FlightRecorderEvents.ENQUEUE, FlightRecorderEvents.DISPATCH, FlightRecorderEvents.HANDLE}) {
+                    recording.enable(name);
+                }
+                recording.start();
+                eventBus.post("traced", eventObject);
+                recording.stop();
+                recording.dump(file.toPath());
+            }
+            return RecordingFile.readAllEvents(file.toPath());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private boolean containsFrame(List<RecordedFrame> frames, String type) {
+        for (RecordedFrame frame : frames) {
+            if (type.equals(frame.getMethod().getType().getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RecordedEvent find(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> found = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                found.add(event);
+            }
+        }
+        assertEquals(name, 1, found.size());
+        return found.get(0);
+    }
+
+    private static class TracedHolder extends AbstractEntityHolder {
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class HolderWatchdogTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private HolderWatchdog watchdog;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(new SerialRunner());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.setWatchdog(null);
+        if (watchdog != null) {
+            watchdog.close();
+        }
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void detectOnce() throws Exception {
+        final List<HolderWatchdog.SlowCall> calls = Collections.synchronizedList(new ArrayList<HolderWatchdog.SlowCall>());
+        watchdog = new HolderWatchdog(20, TimeUnit.MILLISECONDS).setListener(new HolderWatchdog.Listener() {
+            @Override
+            public void onSlowHolder(HolderWatchdog.SlowCall call) {
+                calls.add(call);
+            }
+        });
+        eventBus.setWatchdog(watchdog);
+        SlowHolder slow = new SlowHolder(200);
+        eventBus.register(slow);
+
+        eventBus.post("fast");
+        eventBus.post("slow");
+        await();
+
+        assertEquals(1, watchdog.getSlowCount());
+        assertEquals(1, calls.size());
+        HolderWatchdog.SlowCall call = calls.get(0);
+        assertEquals("slow", call.getEventName());
+        assertEquals(SlowHolder.class.getSimpleName(), call.getHolderType());
+        assertTrue(call.getDuration() >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(containsFrame(call.getStackTrace(), "sleep"));
+        assertNotNull(watchdog.getSlowHolders().get(SlowHolder.class.getSimpleName()));
+        assertFalse(eventBus.isQuarantined(SlowHolder.class.getSimpleName()));
+    }
+
+    @Test
+    public void quarantine() throws Exception {
+        watchdog = new HolderWatchdog(20, TimeUnit.MILLISECONDS).setQuarantine(true);
+        eventBus.setWatchdog(watchdog);
+        SlowHolder slow = new SlowHolder(300);
+        FastHolder fast = new FastHolder();
+        eventBus.register(slow);
+        eventBus.register(fast);
+
+        eventBus.post("slow");
+        await();
+        assertTrue(eventBus.isQuarantined(SlowHolder.class.getSimpleName()));
+
+        // the quarantined holder is called in its own lane and does not delay other holders
+        fast.latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        eventBus.post("slow");
+        assertTrue(fast.latch.await(10, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(250));
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (slow.handled.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, slow.handled.size());
+
+        eventBus.release(SlowHolder.class.getSimpleName());
+        assertFalse(eventBus.isQuarantined(SlowHolder.class.getSimpleName()));
+    }
+
+    @Test
+    public void quarantineWhileRunning() throws Exception {
+        // each event is dispatched in its own thread
+        eventBus.setRunner(new EventBus.Runner() {
+            @Override
+            public void post(Runnable runnable) {
+                new Thread(runnable).start();
+            }
+        });
+        watchdog = new HolderWatchdog(20, TimeUnit.MILLISECONDS).setQuarantine(true);
+        eventBus.setWatchdog(watchdog);
+        SlowHolder slow = new SlowHolder(300);
+        eventBus.register(slow);
+
+        eventBus.post("slow");
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!eventBus.isQuarantined(SlowHolder.class.getSimpleName()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(eventBus.isQuarantined(SlowHolder.class.getSimpleName()));
+        assertEquals(0, slow.handled.size());
+
+        // the first call is still running, the lane must wait for it
+        eventBus.post("slow");
+        while (slow.handled.size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, slow.handled.size());
+        assertEquals(1, slow.maxActive.get());
+    }
+
+    private boolean containsFrame(StackTraceElement[] stack, String method) {
+        for (StackTraceElement element : stack) {
+            if (method.equals(element.getMethodName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void await() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    private static class SlowHolder extends AbstractEntityHolder {
+        final List<String> handled = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger maxActive = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final long millis;
+
+        SlowHolder(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) throws Exception {
+            if ("slow".equals(eventName)) {
+                int now = active.incrementAndGet();
+                while (maxActive.get() < now && !maxActive.compareAndSet(maxActive.get(), now)) {
+                    // retry
+                }
+                Thread.sleep(millis);
+                handled.add(eventName);
+                active.decrementAndGet();
+            }
+            return true;
+        }
+    }
+
+    private static class FastHolder extends AbstractEntityHolder {
+        volatile CountDownLatch latch;
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            CountDownLatch latch = this.latch;
+            if ("slow".equals(eventName) && latch != null) {
+                latch.countDown();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class JournalReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RecordingHolder holder;
+    private EventJournal journal;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        holder = new RecordingHolder();
+        eventBus.register(holder);
+        journal = new EventJournal(folder.newFolder("journal"), SerializableCodec.INSTANCE, 1024, EventJournal.Fsync.OS, 0, 0);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        journal.close();
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void replayRange() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            journal.append("event", i);
+        }
+        assertTrue(journal.getSegmentCount() > 1);
+        assertEquals(5, new JournalReplay(journal).setFrom(40).setTo(45).replay(eventBus));
+        assertEquals(Arrays.<Object>asList(40, 41, 42, 43, 44), holder.events);
+
+        holder.events.clear();
+        assertEquals(3, new JournalReplay(journal).setFrom(97).replay(eventBus));
+        assertEquals(Arrays.<Object>asList(97, 98, 99), holder.events);
+    }
+
+    @Test
+    public void replayByTime() throws Exception {
+        journal.append("event", 0);
+        Thread.sleep(20);
+        long from = System.currentTimeMillis();
+        journal.append("event", 1);
+        journal.append("event", 2);
+        Thread.sleep(20);
+        long to = System.currentTimeMillis();
+        journal.append("event", 3);
+
+        assertEquals(1, journal.findOffset(from));
+        assertEquals(4, journal.findOffset(System.currentTimeMillis() + 1000));
+        assertEquals(2, new JournalReplay(journal).setFromTime(from).setToTime(to).replay(eventBus));
+        assertEquals(Arrays.<Object>asList(1, 2), holder.events);
+    }
+
+    @Test
+    public void replayWithRate() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            journal.append("event", i);
+        }
+        long start = System.nanoTime();
+        assertEquals(5, new JournalReplay(journal).setRate(100).replay(eventBus));
+        assertTrue(System.nanoTime() - start >= 40000000L);
+    }
+
+    @Test
+    public void replayWithSpeed() throws Exception {
+        journal.append("event", 0);
+        Thread.sleep(100);
+        journal.append("event", 1);
+        long start = System.nanoTime();
+        assertEquals(2, new JournalReplay(journal).setSpeed(2).replay(eventBus));
+        assertTrue(System.nanoTime() - start >= 40000000L);
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.edeqa.eventbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class PartitionedRunnerTest {
+
+    @Test
+    public void orderedByKey() throws Exception {
+        PartitionedRunner runner = new PartitionedRunner(4);
+        final List<List<Integer>> results = new ArrayList<>();
+        for (int key = 0; key < 8; key++) {
+            results.add(Collections.synchronizedList(new ArrayList<Integer>()));
+        }
+        final CountDownLatch latch = new CountDownLatch(8 * 500);
+        for (int i = 0; i < 500; i++) {
+            for (int key = 0; key < 8; key++) {
+                final List<Integer> result = results.get(key);
+                final int value = i;
+                runner.post(key, new Runnable() {
+                    @Override
+                    public void run() {
+                        result.add(value);
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (List<Integer> result : results) {
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i, (int) result.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void parallelKeys() throws Exception {
+        PartitionedRunner runner = new PartitionedRunner(2);
+        assertNotEquals(runner.partition(0), runner.partition(1));
+
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        runner.post(0, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    released.await();
+                    finished.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        runner.post(1, new Runnable() {
+            @Override
+            public void run() {
+                released.countDown();
+            }
+        });
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void postAllBetweenKeys() throws Exception {
+        PartitionedRunner runner = new PartitionedRunner(2);
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(2);
+        runner.post(0, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    released.await();
+                    calls.add("before0");
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        runner.post(1, new Runnable() {
+            @Override
+            public void run() {
+                calls.add("before1");
+            }
+        });
+        runner.postAll(new Runnable() {
+            @Override
+            public void run() {
+                calls.add("all");
+            }
+        });
+        for (int key = 0; key < 2; key++) {
+            final String call = "after" + key;
+            runner.post(key, new Runnable() {
+                @Override
+                public void run() {
+                    calls.add(call);
+                    finished.countDown();
+                }
+            });
+        }
+        Thread.sleep(100);
+        assertEquals(Collections.singletonList("before1"), new ArrayList<>(calls));
+
+        released.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("before1", "before0", "all"), calls.subList(0, 3));
+        assertEquals(5, calls.size());
+    }
+
+    @Test
+    public void holderStartBeforeKeys() throws Exception {
+        //noinspection unchecked
+        EventBus<EntityHolder> eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        EventBus.Runner previousRunner = eventBus.getRunner();
+        eventBus.setRunner(new PartitionedRunner(4));
+        try {
+            final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+            final CountDownLatch finished = new CountDownLatch(8);
+            eventBus.register(new AbstractEntityHolder() {
+                @Override
+                public String getType() {
+                    return "partitioned";
+                }
+
+                @Override
+                public void start() {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    calls.add("start");
+                }
+
+                @Override
+                public boolean onEvent(String eventName, Object eventObject) {
+                    calls.add(eventName);
+                    finished.countDown();
+                    return true;
+                }
+            });
+            for (int key = 0; key < 8; key++) {
+                eventBus.postByKey("event" + key, key, key);
+            }
+            assertTrue(finished.await(10, TimeUnit.SECONDS));
+            assertEquals(9, calls.size());
+            assertEquals("start", calls.get(0));
+        } finally {
+            eventBus.clear();
+            eventBus.setRunner(previousRunner);
+        }
+    }
+
+    @Test
+    public void partition() throws Exception {
+        PartitionedRunner runner = new PartitionedRunner(3);
+        assertEquals(3, runner.getPartitions());
+        assertEquals(0, runner.partition(null));
+        assertEquals(runner.partition("user1"), runner.partition("user1"));
+    }
+}
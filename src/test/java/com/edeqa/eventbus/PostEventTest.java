@@ -0,0 +1,137 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class PostEventTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private List<String> calls;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        calls = Collections.synchronizedList(new ArrayList<String>());
+        eventBus.register(new RecordingHolder("first"));
+        eventBus.register(new RecordingHolder("second"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void completesForAllHolders() throws Exception {
+        CompletableFuture<PostEvent<String>> future = eventBus.post(new PostEvent<>("event", "object"));
+        assertTrue(future.isDone());
+        assertEquals(2, future.get().getFulfillment());
+        assertTrue(future.get().isFulfilled());
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    public void completesOnMaxFulfillment() throws Exception {
+        PostEvent<String> event = new PostEvent<>("event", "object", 1);
+        eventBus.post(event);
+        assertTrue(event.getFuture().isDone());
+        assertEquals(1, event.getFulfillment());
+        assertEquals(Collections.singletonList("first"), calls);
+    }
+
+    @Test
+    public void forwarded() throws Exception {
+        final List<Object> forwarded = Collections.synchronizedList(new ArrayList<>());
+        EventBus.Forwarder forwarder = new EventBus.Forwarder() {
+            @Override
+            public void forward(EventBus<?> eventBus, String eventName, Object eventObject) {
+                forwarded.add(eventObject);
+            }
+        };
+        eventBus.addForwarder(forwarder);
+        try {
+            eventBus.post(new PostEvent<>("event", "single"));
+            List<PostEvent<String>> batch = new ArrayList<>();
+            batch.add(new PostEvent<>("event", "first"));
+            batch.add(new PostEvent<>("event", "second"));
+            eventBus.postBatch(batch);
+            assertEquals(Arrays.<Object>asList("single", "first", "second"), forwarded);
+        } finally {
+            eventBus.removeForwarder(forwarder);
+        }
+    }
+
+    @Test
+    public void completesAsynchronously() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        eventBus.setRunnerFactory(SerialRunner.factory(executor));
+        List<CompletableFuture<PostEvent<Integer>>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(eventBus.post(new PostEvent<>("event", i)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(200, calls.size());
+        executor.shutdown();
+    }
+
+    @Test
+    public void increaseCounter() throws Exception {
+        PostEvent<String> event = new PostEvent<>("event", null, 2);
+        assertFalse(event.acknowledge());
+        assertFalse(event.getFuture().isDone());
+        assertTrue(event.acknowledge());
+        assertTrue(event.getFuture().isDone());
+
+        event = new PostEvent<>("event");
+        for (int i = 0; i < 10; i++) {
+            assertFalse(event.acknowledge());
+        }
+        assertEquals(10, event.getFulfillment());
+
+        event = new PostEvent<>("event", null, 1);
+        event.increaseCounter();
+        assertTrue(event.isFulfilled());
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        private final String type;
+
+        RecordingHolder(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            calls.add(type);
+            return true;
+        }
+    }
+}
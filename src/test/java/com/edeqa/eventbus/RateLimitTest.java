@@ -0,0 +1,181 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class RateLimitTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.setRateLimit("progress", null);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void throttle() throws Exception {
+        RecordingHolder holder = new RecordingHolder("holder", null);
+        eventBus.register(holder);
+        eventBus.setRateLimit("progress", RateLimit.throttle(1, TimeUnit.HOURS));
+        long suppressed = eventBus.getSuppressedCount("progress");
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("progress", i);
+        }
+        assertEquals(Collections.<Object>singletonList(0), holder.events);
+        assertEquals(9, eventBus.getSuppressedCount("progress") - suppressed);
+
+        eventBus.setRateLimit("progress", null);
+        assertNull(eventBus.getRateLimit("progress"));
+        eventBus.post("progress", 10);
+        assertEquals(2, holder.events.size());
+    }
+
+    @Test
+    public void debounce() throws Exception {
+        RecordingHolder holder = new RecordingHolder("holder", null);
+        eventBus.register(holder);
+        eventBus.setRateLimit("progress", RateLimit.debounce(50, TimeUnit.MILLISECONDS));
+        long suppressed = eventBus.getSuppressedCount("progress");
+        holder.latch = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("progress", i);
+        }
+        assertEquals(0, holder.events.size());
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.<Object>singletonList(9), holder.events);
+        assertEquals(9, eventBus.getSuppressedCount("progress") - suppressed);
+        // direct runner calls holder in the lane of timer, not in the thread of timer
+        assertFalse(holder.threads.get(0).startsWith("EventBus-timer-"));
+    }
+
+    @Test
+    public void debounceByKey() throws Exception {
+        RecordingHolder holder = new RecordingHolder("holder", null);
+        eventBus.register(holder);
+        eventBus.setRateLimit("progress", RateLimit.debounce(50, TimeUnit.MILLISECONDS));
+        holder.latch = new CountDownLatch(2);
+        for (int i = 0; i < 10; i++) {
+            eventBus.postByKey("progress", i, i % 2);
+        }
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        assertEquals(new HashSet<Object>(Arrays.<Object>asList(8, 9)), new HashSet<>(holder.events));
+        assertEquals(2, holder.events.size());
+    }
+
+    @Test
+    public void forwardDebounced() throws Exception {
+        final List<Object> forwarded = Collections.synchronizedList(new ArrayList<>());
+        EventBus.Forwarder forwarder = new EventBus.Forwarder() {
+            @Override
+            public void forward(EventBus<?> eventBus, String eventName, Object eventObject) {
+                forwarded.add(eventObject);
+            }
+        };
+        RecordingHolder holder = new RecordingHolder("holder", null);
+        eventBus.register(holder);
+        eventBus.addForwarder(forwarder);
+        try {
+            eventBus.setRateLimit("progress", RateLimit.debounce(50, TimeUnit.MILLISECONDS));
+            holder.latch = new CountDownLatch(1);
+            for (int i = 0; i < 10; i++) {
+                eventBus.post("progress", i);
+            }
+            assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.<Object>singletonList(9), forwarded);
+
+            // events came from other process are not forwarded back
+            holder.latch = new CountDownLatch(1);
+            eventBus.receive("progress", 10);
+            assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+            assertEquals(Collections.<Object>singletonList(10), holder.events.subList(1, 2));
+            assertEquals(1, forwarded.size());
+        } finally {
+            eventBus.removeForwarder(forwarder);
+        }
+    }
+
+    @Test
+    public void holderLimits() throws Exception {
+        RecordingHolder plain = new RecordingHolder("plain", null);
+        RecordingHolder throttled = new RecordingHolder("throttled", RateLimit.throttle(1, TimeUnit.HOURS));
+        RecordingHolder debounced = new RecordingHolder("debounced", RateLimit.debounce(50, TimeUnit.MILLISECONDS));
+        eventBus.register(plain);
+        eventBus.register(throttled);
+        eventBus.register(debounced);
+        debounced.latch = new CountDownLatch(1);
+        for (int i = 0; i < 10; i++) {
+            eventBus.post("progress", i);
+        }
+        assertTrue(debounced.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(10, plain.events.size());
+        assertEquals(Collections.<Object>singletonList(0), throttled.events);
+        assertEquals(Collections.<Object>singletonList(9), debounced.events);
+        assertEquals(18, eventBus.getSuppressedCount("progress"));
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder implements RateLimitedEntityHolder {
+        private final String type;
+        private final RateLimit limit;
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        volatile CountDownLatch latch = new CountDownLatch(0);
+
+        RecordingHolder(String type, RateLimit limit) {
+            this.type = type;
+            this.limit = limit;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public Map<String, RateLimit> rateLimits() {
+            Map<String, RateLimit> limits = new HashMap<>();
+            if (limit != null) {
+                limits.put("progress", limit);
+            }
+            return limits;
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            threads.add(Thread.currentThread().getName());
+            latch.countDown();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Created 10/17/26.
+ */
+public class RequestTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private List<String> calls;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(new SerialRunner());
+        calls = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void request() throws Exception {
+        eventBus.register(new PlainHolder());
+        eventBus.register(new Responder("first", null));
+        eventBus.register(new Responder("second", "reply2"));
+        eventBus.register(new Responder("third", "reply3"));
+
+        String reply = eventBus.<String>request("question", "payload", 10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+        assertEquals("reply2", reply);
+        assertEquals(Arrays.asList("first", "second"), calls);
+    }
+
+    @Test
+    public void requestAll() throws Exception {
+        eventBus.register(new PlainHolder());
+        eventBus.register(new Responder("first", "reply1"));
+        eventBus.register(new Responder("second", CompletableFuture.completedFuture("reply2")));
+
+        List<String> replies = eventBus.<String>requestAll("question", "payload", 10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("reply1", "reply2"), replies);
+    }
+
+    @Test
+    public void noResponders() throws Exception {
+        eventBus.register(new PlainHolder());
+        assertNull(eventBus.request("question", "payload", 10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS));
+        assertEquals(0, eventBus.requestAll("question", "payload", 10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS).size());
+        assertEquals(0, calls.size());
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        eventBus.register(new Responder("first", "reply1"));
+        eventBus.register(new Responder("second", new CompletableFuture<String>()));
+
+        try {
+            eventBus.request("never", "payload", 50, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        List<Object> replies = eventBus.requestAll("question", "payload", 50, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS);
+        assertEquals(Collections.<Object>singletonList("reply1"), replies);
+    }
+
+    @Test
+    public void requestRejected() throws Exception {
+        eventBus.register(new Responder("first", "reply1"));
+        eventBus.setRunner(new EventBus.Runner() {
+            @Override
+            public void post(Runnable runnable) {
+                throw new RejectedExecutionException("full");
+            }
+        });
+        int pending = HashedWheelTimer.getShared().pending();
+        try {
+            eventBus.request("event", null, 1, TimeUnit.HOURS);
+            fail();
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        assertEquals(pending, HashedWheelTimer.getShared().pending());
+    }
+
+    private class PlainHolder extends AbstractEntityHolder {
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            calls.add("plain");
+            return true;
+        }
+    }
+
+    private class Responder extends AbstractEntityHolder implements ResponderEntityHolder {
+        private final String type;
+        private final Object reply;
+
+        Responder(String type, Object reply) {
+            this.type = type;
+            this.reply = reply;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            return true;
+        }
+
+        @Override
+        public Object onRequest(String eventName, Object eventObject) {
+            calls.add(type);
+            return "never".equals(eventName) && !(reply instanceof CompletableFuture) ? null : reply;
+        }
+    }
+}
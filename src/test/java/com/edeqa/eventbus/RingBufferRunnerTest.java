@@ -0,0 +1,144 @@
+package com.edeqa.eventbus;
+
+import com.edeqa.eventbus.RingBufferRunner.ProducerType;
+import com.edeqa.eventbus.RingBufferRunner.WaitStrategy;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class RingBufferRunnerTest {
+
+    @Test
+    public void singleProducer() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            RingBufferRunner runner = new RingBufferRunner(16, ProducerType.SINGLE, waitStrategy);
+            final List<Integer> result = new ArrayList<>();
+            final CountDownLatch latch = new CountDownLatch(1000);
+            for (int i = 0; i < 1000; i++) {
+                final int value = i;
+                runner.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        result.add(value);
+                        latch.countDown();
+                    }
+                });
+            }
+            assertTrue(waitStrategy.toString(), latch.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, (int) result.get(i));
+            }
+            runner.shutdown();
+        }
+    }
+
+    @Test
+    public void multiProducer() throws Exception {
+        final RingBufferRunner runner = new RingBufferRunner(64, ProducerType.MULTI, WaitStrategy.BLOCKING);
+        final int producers = 4;
+        final int posts = 5000;
+        final int[] last = new int[producers];
+        final int[] failures = new int[1];
+        final CountDownLatch latch = new CountDownLatch(producers * posts);
+        for (int p = 0; p < producers; p++) {
+            last[p] = -1;
+            final int producer = p;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < posts; i++) {
+                        final int value = i;
+                        runner.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (last[producer] != value - 1) failures[0]++;
+                                last[producer] = value;
+                                latch.countDown();
+                            }
+                        });
+                    }
+                }
+            }).start();
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertEquals(0, failures[0]);
+        runner.shutdown();
+    }
+
+    @Test
+    public void postFromRunnerThread() throws Exception {
+        final RingBufferRunner runner = new RingBufferRunner(2);
+        final CountDownLatch latch = new CountDownLatch(11);
+        runner.post(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10; i++) {
+                    runner.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            latch.countDown();
+                        }
+                    });
+                }
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        runner.shutdown();
+    }
+
+    @Test
+    public void postEvent() throws Exception {
+        //noinspection unchecked
+        EventBus<EntityHolder> eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        EventBus.Runner previousRunner = eventBus.getRunner();
+        RingBufferRunner runner = new RingBufferRunner(8);
+        eventBus.setRunner(runner);
+        final List<Object> result = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(100);
+        eventBus.register(new RecordingHolder(result, latch));
+        for (int i = 0; i < 100; i++) {
+            eventBus.post("event", i);
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, result.get(i));
+        }
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+        runner.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity() throws Exception {
+        new RingBufferRunner(10);
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        private final List<Object> result;
+        private final CountDownLatch latch;
+
+        RecordingHolder(List<Object> result, CountDownLatch latch) {
+            this.result = result;
+            this.latch = latch;
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            result.add(eventObject);
+            latch.countDown();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class ScheduledPostTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private RecordingHolder holder;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        holder = new RecordingHolder();
+        eventBus.register(holder);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void postDelayed() throws Exception {
+        holder.latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+        ScheduledPost post = eventBus.postDelayed("event", 1, 50, TimeUnit.MILLISECONDS);
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(Collections.<Object>singletonList(1), holder.events);
+        assertEquals(1, post.getCount());
+        assertFalse(post.cancel());
+        // direct runner calls holders in the lane of post, not in the thread of timer
+        assertFalse(holder.threads.get(0).startsWith("EventBus-timer-"));
+    }
+
+    @Test
+    public void postAt() throws Exception {
+        holder.latch = new CountDownLatch(1);
+        eventBus.postAt("event", 1, System.currentTimeMillis() + 20);
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sameDelayInOrder() throws Exception {
+        holder.latch = new CountDownLatch(2000);
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            eventBus.postDelayed("event", i, 30, TimeUnit.MILLISECONDS);
+            expected.add(i);
+        }
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(expected, holder.events);
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        ScheduledPost cancelled = eventBus.postDelayed("event", 1, 20, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+        assertTrue(cancelled.isCancelled());
+        holder.latch = new CountDownLatch(1);
+        eventBus.postDelayed("event", 2, 60, TimeUnit.MILLISECONDS);
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.<Object>singletonList(2), holder.events);
+        assertEquals(0, cancelled.getCount());
+    }
+
+    @Test
+    public void postPeriodically() throws Exception {
+        holder.latch = new CountDownLatch(3);
+        ScheduledPost post = eventBus.postPeriodically("event", 1, 0, 20, TimeUnit.MILLISECONDS);
+        assertTrue(post.isPeriodic());
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+        assertTrue(post.cancel());
+        long count = post.getCount();
+        Thread.sleep(100);
+        assertEquals(count, post.getCount());
+        assertTrue(count >= 3);
+    }
+
+    @Test
+    public void manyPending() throws Exception {
+        List<ScheduledPost> posts = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            posts.add(eventBus.postDelayed("event", i, 1, TimeUnit.HOURS));
+        }
+        for (ScheduledPost post : posts) {
+            assertTrue(post.cancel());
+        }
+        assertEquals(0, holder.events.size());
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+        final List<String> threads = Collections.synchronizedList(new ArrayList<String>());
+        volatile CountDownLatch latch = new CountDownLatch(0);
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            events.add(eventObject);
+            threads.add(Thread.currentThread().getName());
+            latch.countDown();
+            return true;
+        }
+    }
+}
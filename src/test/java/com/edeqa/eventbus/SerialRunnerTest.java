@@ -0,0 +1,78 @@
+package com.edeqa.eventbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class SerialRunnerTest {
+
+    @Test
+    public void post() throws Exception {
+        SerialRunner runner = new SerialRunner();
+        final List<Integer> result = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(1);
+        for (int i = 0; i < 1000; i++) {
+            final int value = i;
+            runner.post(new Runnable() {
+                @Override
+                public void run() {
+                    result.add(value);
+                }
+            });
+        }
+        runner.post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(1000, result.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, (int) result.get(i));
+        }
+    }
+
+    @Test
+    public void parallelLanes() throws Exception {
+        SerialRunner first = new SerialRunner();
+        SerialRunner second = new SerialRunner();
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        first.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    released.await();
+                    finished.countDown();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        second.post(new Runnable() {
+            @Override
+            public void run() {
+                released.countDown();
+            }
+        });
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void factory() throws Exception {
+        EventBus.Runner.Factory factory = SerialRunner.factory(SerialRunner.getSharedExecutor());
+        assertNotSame(factory.create("first"), factory.create("second"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class SharedMemoryBridgeTest {
+
+    private static final int EVENTS = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+    private SharedMemoryBridge bridge;
+    private Process peer;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (bridge != null) {
+            bridge.close();
+        }
+        if (peer != null) {
+            peer.destroy();
+            peer.waitFor();
+        }
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void pingPong() throws Exception {
+        File directory = folder.newFolder("bridge");
+        PongHolder holder = new PongHolder();
+        eventBus.register(holder);
+        bridge = new SharedMemoryBridge(eventBus, directory, BinaryCodec.INSTANCE, 64 * 1024).setEventNames("ping");
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        peer = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), Peer.class.getName(), directory.getPath())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader output = new BufferedReader(new InputStreamReader(peer.getInputStream(), "UTF-8"));
+        assertEquals("ready", output.readLine());
+
+        for (int i = 0; i < EVENTS; i++) {
+            eventBus.post("ping", i);
+        }
+        eventBus.post("local", "not forwarded");
+        assertTrue(holder.latch.await(10, TimeUnit.SECONDS));
+
+        List<Object> expected = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, holder.pongs);
+        assertEquals(EVENTS, bridge.getSentCount());
+        assertEquals(EVENTS, bridge.getReceivedCount());
+        assertEquals(0, bridge.getLostCount());
+    }
+
+    @Test
+    public void close() throws Exception {
+        File directory = folder.newFolder("bridge");
+        bridge = new SharedMemoryBridge(eventBus, directory, BinaryCodec.INSTANCE, 1024);
+        assertEquals(1, directory.listFiles().length);
+        bridge.close();
+        eventBus.post("event", 1);
+        assertEquals(0, bridge.getSentCount());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    private class PongHolder extends AbstractEntityHolder {
+        final List<Object> pongs = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch latch = new CountDownLatch(EVENTS);
+
+        @Override
+        public List<String> events() {
+            return Collections.singletonList("pong");
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            if (!"pong".equals(eventName)) {
+                return true;
+            }
+            pongs.add(eventObject);
+            latch.countDown();
+            return true;
+        }
+    }
+
+    /**
+     * Other process: answers "pong" to each "ping" until its input is closed.
+     */
+    public static class Peer {
+
+        public static void main(String[] args) throws Exception {
+            //noinspection unchecked
+            EventBus<EntityHolder> eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+            eventBus.register(new PingHolder());
+            SharedMemoryBridge bridge = new SharedMemoryBridge(eventBus, new File(args[0]), BinaryCodec.INSTANCE, 64 * 1024);
+            System.out.println("ready");
+            System.out.flush();
+            //noinspection StatementWithEmptyBody
+            while (System.in.read() >= 0) {
+            }
+            bridge.close();
+            System.exit(0);
+        }
+    }
+
+    public static class PingHolder extends AbstractEntityHolder {
+        @Override
+        public List<String> events() {
+            return Collections.singletonList("ping");
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            if ("ping".equals(eventName)) {
+                EventBus.post(EventBus.DEFAULT_NAME, "pong", eventObject);
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.edeqa.eventbus;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Created 10/17/26.
+ */
+public class SharedRingTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private SharedRing writer;
+    private SharedRing reader;
+    private final List<Object> received = new ArrayList<>();
+    private final SharedRing.Handler handler = new SharedRing.Handler() {
+        @Override
+        public void onEvent(String eventName, Object eventObject) {
+            received.add(eventObject);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.newFile("test.ring");
+        writer = SharedRing.create(file, 1024);
+        reader = SharedRing.open(file, true);
+    }
+
+    @Test
+    public void notReady() throws Exception {
+        assertNull(SharedRing.open(folder.newFile("empty.ring"), true));
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        assertEquals(10, write(0, 10));
+        assertEquals(10, reader.read(handler, BinaryCodec.INSTANCE));
+        assertEquals(expected(0, 10), received);
+        assertEquals(0, reader.read(handler, BinaryCodec.INSTANCE));
+    }
+
+    @Test
+    public void wrap() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            write(i * 3, 3);
+            assertEquals(3, reader.read(handler, BinaryCodec.INSTANCE));
+        }
+        assertEquals(expected(0, 900), received);
+        assertEquals(0, reader.getLost());
+    }
+
+    @Test
+    public void fromTail() throws Exception {
+        write(0, 5);
+        SharedRing late = SharedRing.open(file, false);
+        write(5, 2);
+        assertEquals(2, late.read(handler, BinaryCodec.INSTANCE));
+        assertEquals(expected(5, 2), received);
+    }
+
+    @Test
+    public void overrun() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            write(i, 1);
+        }
+        assertEquals(0, reader.read(handler, BinaryCodec.INSTANCE));
+        write(100, 1);
+        assertEquals(1, reader.read(handler, BinaryCodec.INSTANCE));
+        assertEquals(expected(100, 1), received);
+        assertEquals(100, reader.getLost());
+    }
+
+    @Test
+    public void tooLarge() throws Exception {
+        Queue<SharedRing.Event> events = new ArrayDeque<>();
+        events.add(new SharedRing.Event("event", new byte[300]));
+        events.add(new SharedRing.Event("event", 1));
+        assertEquals(1, writer.write(events, BinaryCodec.INSTANCE));
+        assertEquals(1, reader.read(handler, BinaryCodec.INSTANCE));
+        assertEquals(expected(1, 1), received);
+    }
+
+    private int write(int from, int count) {
+        Queue<SharedRing.Event> events = new ArrayDeque<>();
+        for (int i = from; i < from + count; i++) {
+            events.add(new SharedRing.Event("event", i));
+        }
+        return writer.write(events, BinaryCodec.INSTANCE);
+    }
+
+    private List<Object> expected(int from, int count) {
+        List<Object> list = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,178 @@
+package com.edeqa.eventbus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class StickyCacheTest {
+
+    private EventBus<EntityHolder> eventBus;
+    private EventBus.Runner previousRunner;
+
+    @Before
+    public void setUp() throws Exception {
+        //noinspection unchecked
+        eventBus = (EventBus<EntityHolder>) EventBus.getOrCreate();
+        previousRunner = eventBus.getRunner();
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        eventBus.setSticky("location", true);
+        eventBus.setSticky("status", true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventBus.setSticky("location", false);
+        eventBus.setSticky("status", false);
+        eventBus.setStickyCapacity(64);
+        eventBus.clear();
+        eventBus.setRunner(previousRunner);
+    }
+
+    @Test
+    public void replayOnRegister() throws Exception {
+        RecordingHolder early = new RecordingHolder("early", null);
+        eventBus.register(early);
+        eventBus.post("location", 1);
+        eventBus.post("location", 2);
+        eventBus.post("other", 3);
+
+        RecordingHolder late = new RecordingHolder("late", null);
+        eventBus.register(late);
+        assertEquals(Arrays.asList("start", "location=2"), late.calls);
+        assertEquals(Arrays.asList("start", "location=1", "location=2", "other=3"), early.calls);
+        assertEquals(2, eventBus.getStickyEvent("location"));
+        assertNull(eventBus.getStickyEvent("other"));
+    }
+
+    @Test
+    public void replayDeclaredOnly() throws Exception {
+        eventBus.register(new RecordingHolder("early", Collections.singletonList("location")));
+        eventBus.post("location", 1);
+        eventBus.post("status", "online");
+
+        RecordingHolder late = new RecordingHolder("late", Collections.singletonList("status"));
+        eventBus.register(late);
+        assertEquals(Arrays.asList("start", "status=online"), late.calls);
+    }
+
+    @Test
+    public void replayOnce() throws Exception {
+        final CountDownLatch released = new CountDownLatch(1);
+        eventBus.setRunner(new SerialRunner());
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    released.await();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
+        });
+        // dispatched after registration, so the holder receives it by dispatch, not by replay
+        eventBus.post("location", 1);
+        RecordingHolder late = new RecordingHolder("late", null);
+        eventBus.register(late);
+        released.countDown();
+        final CountDownLatch drained = new CountDownLatch(1);
+        eventBus.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                drained.countDown();
+            }
+        });
+        assertTrue(drained.await(10, TimeUnit.SECONDS));
+        eventBus.setRunner(EventBus.RUNNER_SINGLE_THREAD);
+        assertEquals(Arrays.asList("location=1", "start"), late.calls);
+    }
+
+    @Test
+    public void clearedBusForgets() throws Exception {
+        eventBus.post("location", 1);
+        eventBus.clear();
+        assertNull(eventBus.getStickyEvent("location"));
+        RecordingHolder late = new RecordingHolder("late", null);
+        eventBus.register(late);
+        assertEquals(Collections.singletonList("start"), late.calls);
+    }
+
+    @Test
+    public void evictLeastRecentlyPosted() throws Exception {
+        eventBus.setStickyCapacity(2);
+        eventBus.setSticky("other", true);
+        try {
+            eventBus.post("location", 1);
+            eventBus.post("status", "online");
+            eventBus.post("location", 2);
+            // reading does not protect the value from eviction, posting does
+            assertEquals("online", eventBus.getStickyEvent("status"));
+            eventBus.post("other", 3);
+            assertNull(eventBus.getStickyEvent("status"));
+            assertEquals(2, eventBus.getStickyEvent("location"));
+            assertEquals(3, eventBus.getStickyEvent("other"));
+        } finally {
+            eventBus.setSticky("other", false);
+        }
+    }
+
+    @Test
+    public void evictAndRemove() throws Exception {
+        eventBus.setStickyCapacity(1);
+        eventBus.post("location", 1);
+        eventBus.post("status", "online");
+        assertNull(eventBus.getStickyEvent("location"));
+        assertTrue(eventBus.removeStickyEvent("status"));
+        assertFalse(eventBus.removeStickyEvent("status"));
+
+        RecordingHolder late = new RecordingHolder("late", null);
+        eventBus.register(late);
+        assertEquals(Collections.singletonList("start"), late.calls);
+    }
+
+    private class RecordingHolder extends AbstractEntityHolder {
+        private final String type;
+        private final List<String> events;
+        final List<String> calls = new ArrayList<>();
+
+        RecordingHolder(String type, List<String> events) {
+            this.type = type;
+            this.events = events;
+        }
+
+        @Override
+        public String getType() {
+            return type;
+        }
+
+        @Override
+        public List<String> events() {
+            return events;
+        }
+
+        @Override
+        public void start() {
+            calls.add("start");
+        }
+
+        @Override
+        public boolean onEvent(String eventName, Object eventObject) {
+            calls.add(eventName + "=" + eventObject);
+            return true;
+        }
+    }
+}
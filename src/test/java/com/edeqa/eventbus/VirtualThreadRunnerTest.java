@@ -0,0 +1,89 @@
+package com.edeqa.eventbus;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Created 10/17/26.
+ */
+public class VirtualThreadRunnerTest {
+
+    @Test
+    public void blocking() throws Exception {
+        VirtualThreadRunner runner = new VirtualThreadRunner();
+        final CountDownLatch latch = new CountDownLatch(500);
+        long started = System.currentTimeMillis();
+        for (int i = 0; i < 500; i++) {
+            runner.post(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        // blocked runnables do not wait for each other, sequentially they would take 100 seconds
+        assertTrue(System.currentTimeMillis() - started < 5000);
+    }
+
+    @Test
+    public void maxConcurrency() throws Exception {
+        VirtualThreadRunner runner = new VirtualThreadRunner(3);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(30);
+        for (int i = 0; i < 30; i++) {
+            runner.post(new Runnable() {
+                @Override
+                public void run() {
+                    int count = running.incrementAndGet();
+                    if (count > max.get()) max.set(count);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                    running.decrementAndGet();
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(max.get() <= 3);
+    }
+
+    @Test
+    public void ordered() throws Exception {
+        EventBus.Runner runner = VirtualThreadRunner.factory(1, true).create("ordered");
+        final List<Integer> result = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(100);
+        for (int i = 0; i < 100; i++) {
+            final int value = i;
+            runner.post(new Runnable() {
+                @Override
+                public void run() {
+                    result.add(value);
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) result.get(i));
+        }
+    }
+}